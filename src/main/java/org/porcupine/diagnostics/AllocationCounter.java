@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the number of bytes allocated by the current thread, if the JVM supports it.
+ *
+ * @author Milan Dierick
+ * @implNote Relies on {@link com.sun.management.ThreadMXBean}, which is available on HotSpot based JVMs. On any other
+ * JVM allocations are not measured, and every measurement reports zero bytes.
+ */
+public final class AllocationCounter {
+	private static final com.sun.management.ThreadMXBean threadBean;
+	
+	static {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean supportedBean = null;
+		
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean candidate = (com.sun.management.ThreadMXBean) bean;
+			
+			if (candidate.isThreadAllocatedMemorySupported()) {
+				candidate.setThreadAllocatedMemoryEnabled(true);
+				supportedBean = candidate;
+			}
+		}
+		
+		threadBean = supportedBean;
+	}
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private AllocationCounter() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @return true if allocations can be measured on this JVM.
+	 */
+	public static boolean isSupported() {
+		return threadBean != null;
+	}
+	
+	/**
+	 * @return the total number of bytes allocated by the current thread so far, or zero if allocations cannot be
+	 * measured. Only the difference between two readings on the same thread is meaningful.
+	 */
+	public static long getAllocatedBytes() {
+		return threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.Logger;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the bytes allocated by the tick, render and event callbacks of every module, see {@link ModuleCallback}.
+ * The allocations are added to the {@link ModuleProfile} of the module, and the modules allocating the most per second
+ * are logged periodically while the profiler is enabled.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * long start = AllocationProfiler.start();
+ * tickCapable.onTick(delta);
+ * AllocationProfiler.stop(tickCapable, ModuleCallback.TICK, start);
+ * }</pre>
+ *
+ * @author Milan Dierick
+ * @implNote The profiler is enabled through {@link FrameworkSettings#isAllocationProfilerEnabled()}, which is only read
+ * once, and requires a JVM supported by the {@link AllocationCounter}. Only one in every
+ * {@link FrameworkSettings#getAllocationSampleInterval()} callbacks is measured, picked at random, and its allocations
+ * are scaled up accordingly. This keeps the cost of reading the allocation counter bounded, while the totals of modules
+ * invoked often remain accurate.
+ */
+public final class AllocationProfiler {
+	private static final boolean ENABLED;
+	private static final int SAMPLE_INTERVAL = FrameworkSettings.getAllocationSampleInterval();
+	private static final int LOGGED_MODULE_COUNT = 10;
+	private static final double BYTES_PER_KILOBYTE = 1024;
+	
+	private static long lastLogNanos = System.nanoTime();
+	
+	static {
+		boolean enabled = FrameworkSettings.isAllocationProfilerEnabled();
+		
+		if (enabled && !AllocationCounter.isSupported()) {
+			Logger.warn("Allocations cannot be measured on this JVM, the allocation profiler is disabled.");
+			enabled = false;
+		}
+		
+		ENABLED = enabled;
+	}
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private AllocationProfiler() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @return true if the allocations of callbacks are being measured.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+	
+	/**
+	 * @return the start of a measurement, to be passed to {@link #stop(Object, ModuleCallback, long)}, or a negative
+	 * value if the callback is not sampled.
+	 */
+	public static long start() {
+		return ENABLED ? start(SAMPLE_INTERVAL) : -1;
+	}
+	
+	/**
+	 * @param sampleInterval The average number of callbacks per measured callback.
+	 *
+	 * @see #start()
+	 */
+	static long start(int sampleInterval) {
+		if (ThreadLocalRandom.current().nextInt(sampleInterval) != 0) {
+			return -1;
+		}
+		
+		return AllocationCounter.getAllocatedBytes();
+	}
+	
+	/**
+	 * Records the bytes the current thread allocated since the given start, if the callback was sampled.
+	 *
+	 * @param module   The module the callback was invoked on.
+	 * @param callback The callback that was invoked.
+	 * @param start    The value returned by {@link #start()} before the callback was invoked, on the same thread.
+	 */
+	public static void stop(Object module, ModuleCallback callback, long start) {
+		stop(module, callback, start, SAMPLE_INTERVAL);
+	}
+	
+	/**
+	 * @param sampleInterval The sample interval passed to {@link #start(int)}, by which the allocations are scaled.
+	 *
+	 * @see #stop(Object, ModuleCallback, long)
+	 */
+	static void stop(Object module, ModuleCallback callback, long start, int sampleInterval) {
+		if (start >= 0) {
+			long allocatedBytes = AllocationCounter.getAllocatedBytes() - start;
+			ModuleProfiler.getProfile(module.getClass()).recordAllocation(callback, allocatedBytes * sampleInterval);
+		}
+	}
+	
+	/**
+	 * @return the profile of every module that has allocated memory, ordered by the number of bytes allocated per
+	 * second, highest first.
+	 */
+	public static List<ModuleProfile> getRanking() {
+		return ModuleProfiler.getProfiles()
+				.stream()
+				.filter(profile -> profile.getAllocatedBytes() > 0)
+				.sorted(Comparator.comparingDouble(ModuleProfile::getAllocationRate).reversed())
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Logs the modules allocating the most per second, if the logging interval has passed since they were last logged.
+	 * Invoked on every game update.
+	 *
+	 * @see FrameworkSettings#getProfilerLogIntervalNanos()
+	 */
+	public static void logIfDue() {
+		if (!ENABLED) {
+			return;
+		}
+		
+		long now = System.nanoTime();
+		
+		if (now - lastLogNanos < FrameworkSettings.getProfilerLogIntervalNanos()) {
+			return;
+		}
+		
+		lastLogNanos = now;
+		
+		getRanking().stream().limit(LOGGED_MODULE_COUNT).forEach(profile -> Logger.info(
+				"%-50s %10.1f KB/s total=%12.1f KB tick=%12.1f KB render=%12.1f KB event=%12.1f KB",
+				profile.getModuleName(),
+				profile.getAllocationRate() / BYTES_PER_KILOBYTE,
+				profile.getAllocatedBytes() / BYTES_PER_KILOBYTE,
+				profile.getAllocatedBytes(ModuleCallback.TICK) / BYTES_PER_KILOBYTE,
+				profile.getAllocatedBytes(ModuleCallback.RENDER) / BYTES_PER_KILOBYTE,
+				profile.getAllocatedBytes(ModuleCallback.EVENT) / BYTES_PER_KILOBYTE
+		));
+	}
+}
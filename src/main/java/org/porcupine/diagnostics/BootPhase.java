@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+/**
+ * The phases of the startup process measured by the {@link BootProfiler}.
+ *
+ * @author Milan Dierick
+ */
+public enum BootPhase {
+	MOD_INFO_CREATION,
+	JAR_ENUMERATION,
+	TYPE_FILTERING,
+	CLASS_LOADING,
+	INSTANTIATION,
+	EVENT_INSTANTIATION,
+	INITIALIZE_EARLY,
+	INITIALIZE_LATE
+}
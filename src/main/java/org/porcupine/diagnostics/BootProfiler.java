@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the wall time and the allocations of every phase of the startup process, per mod and per module. Once the
+ * framework has been initialized, the measurements are summarized in the log and written to a machine-readable boot
+ * report, see {@link FrameworkSettings#getBootReportPath()}.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.CLASS_LOADING, info.name, null);
+ *
+ * try {
+ *     // ...
+ * } finally {
+ *     measurement.stop();
+ * }
+ * }</pre>
+ *
+ * @author Milan Dierick
+ * @implNote Measurements may be taken concurrently from any thread. Allocations are measured on the thread that takes
+ * the measurement, see {@link AllocationCounter}. Only measurements that are stopped between {@link #begin()} and
+ * {@link #finish()} are recorded, so every boot only reports its own phases.
+ */
+public final class BootProfiler {
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final int SLOWEST_MODULE_COUNT = 10;
+	
+	private static final Collection<BootRecord> records = new ConcurrentLinkedQueue<>();
+	private static volatile boolean recording;
+	private static long bootStart;
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private BootProfiler() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * Marks the start of the boot, discarding the measurements of any previous boot.
+	 */
+	public static void begin() {
+		records.clear();
+		bootStart = System.nanoTime();
+		recording = true;
+	}
+	
+	/**
+	 * Starts measuring a phase. The measurement is recorded once it is stopped.
+	 *
+	 * @param phase  The phase to measure.
+	 * @param mod    The name of the mod the phase is executed for, or null if the phase spans all mods.
+	 * @param module The class name of the module the phase is executed for, or null if the phase spans all modules.
+	 *
+	 * @return the running measurement.
+	 */
+	public static @NotNull Measurement measure(BootPhase phase, @Nullable String mod, @Nullable String module) {
+		return new Measurement(phase, mod, module);
+	}
+	
+	/**
+	 * @return a snapshot of every measurement recorded so far.
+	 */
+	public static List<BootRecord> getRecords() {
+		return new ArrayList<>(records);
+	}
+	
+	/**
+	 * Marks the end of the boot, logs a summary of the measurements and writes the boot report.
+	 */
+	public static void finish() {
+		recording = false;
+		
+		long totalNanos = System.nanoTime() - bootStart;
+		List<BootRecord> snapshot = getRecords();
+		
+		logSummary(totalNanos, snapshot);
+		writeReport(totalNanos, snapshot);
+	}
+	
+	private static void logSummary(long totalNanos, Collection<BootRecord> snapshot) {
+		Logger.info("Porcupine boot took %d ms.", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+		
+		Map<BootPhase, List<BootRecord>> byPhase = snapshot.stream()
+				.collect(Collectors.groupingBy(record -> record.phase, () -> new EnumMap<>(BootPhase.class), Collectors.toList()));
+		
+		byPhase.forEach((phase, phaseRecords) -> Logger.info(
+				"  %-20s %8.1f ms %10d KiB",
+				phase,
+				sumNanos(phaseRecords) / 1.0e6,
+				sumBytes(phaseRecords) / 1024
+		));
+		
+		Map<String, List<BootRecord>> byMod = snapshot.stream()
+				.filter(record -> record.mod != null)
+				.collect(Collectors.groupingBy(record -> record.mod, TreeMap::new, Collectors.toList()));
+		
+		byMod.forEach((mod, modRecords) -> Logger.info(
+				"  mod %-30s %8.1f ms %10d KiB",
+				mod,
+				sumNanos(modRecords) / 1.0e6,
+				sumBytes(modRecords) / 1024
+		));
+		
+		snapshot.stream()
+				.filter(record -> record.module != null)
+				.collect(Collectors.groupingBy(record -> record.module, Collectors.summingLong(record -> record.wallNanos)))
+				.entrySet()
+				.stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(SLOWEST_MODULE_COUNT)
+				.forEach(entry -> Logger.info("  module %-50s %8.1f ms", entry.getKey(), entry.getValue() / 1.0e6));
+	}
+	
+	private static void writeReport(long totalNanos, List<BootRecord> snapshot) {
+		Path reportPath = FrameworkSettings.getBootReportPath();
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("totalNanos", totalNanos);
+		report.put("allocationsMeasured", AllocationCounter.isSupported());
+		report.put("records", snapshot);
+		
+		try {
+			if (reportPath.getParent() != null) {
+				Files.createDirectories(reportPath.getParent());
+			}
+			
+			try (Writer writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+				GSON.toJson(report, writer);
+			}
+			
+			Logger.info("Boot report written to %s", reportPath);
+		} catch (IOException e) {
+			Logger.warn("IO exception while trying to write boot report: %s", reportPath);
+		}
+	}
+	
+	private static long sumNanos(Collection<BootRecord> records) {
+		return records.stream().mapToLong(record -> record.wallNanos).sum();
+	}
+	
+	private static long sumBytes(Collection<BootRecord> records) {
+		return records.stream().mapToLong(record -> record.allocatedBytes).sum();
+	}
+	
+	/**
+	 * A running measurement of a single phase.
+	 */
+	public static final class Measurement {
+		private final BootPhase phase;
+		private final @Nullable String mod;
+		private final @Nullable String module;
+		private final long startNanos;
+		private final long startBytes;
+		
+		private Measurement(BootPhase phase, @Nullable String mod, @Nullable String module) {
+			this.phase = phase;
+			this.mod = mod;
+			this.module = module;
+			this.startBytes = AllocationCounter.getAllocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+		
+		/**
+		 * Stops the measurement and records it, if a boot is in progress.
+		 */
+		public void stop() {
+			if (!recording) {
+				return;
+			}
+			
+			long wallNanos = System.nanoTime() - startNanos;
+			long allocatedBytes = AllocationCounter.getAllocatedBytes() - startBytes;
+			records.add(new BootRecord(phase, mod, module, Thread.currentThread().getName(), wallNanos, allocatedBytes));
+		}
+	}
+}
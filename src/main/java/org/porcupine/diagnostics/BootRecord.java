@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A single measurement taken by the {@link BootProfiler}.
+ *
+ * @author Milan Dierick
+ */
+public final class BootRecord {
+	final BootPhase phase;
+	final @Nullable String mod;
+	final @Nullable String module;
+	final String thread;
+	final long wallNanos;
+	final long allocatedBytes;
+	
+	BootRecord(
+			BootPhase phase,
+			@Nullable String mod,
+			@Nullable String module,
+			String thread,
+			long wallNanos,
+			long allocatedBytes
+	) {
+		this.phase = phase;
+		this.mod = mod;
+		this.module = module;
+		this.thread = thread;
+		this.wallNanos = wallNanos;
+		this.allocatedBytes = allocatedBytes;
+	}
+	
+	public BootPhase getPhase() {
+		return phase;
+	}
+	
+	/**
+	 * @return the name of the mod the phase was executed for, or null if the phase spans all mods.
+	 */
+	public @Nullable String getMod() {
+		return mod;
+	}
+	
+	/**
+	 * @return the class name of the module the phase was executed for, or null if the phase spans all modules.
+	 */
+	public @Nullable String getModule() {
+		return module;
+	}
+	
+	/**
+	 * @return the name of the thread the phase was executed on.
+	 */
+	public String getThread() {
+		return thread;
+	}
+	
+	public long getWallNanos() {
+		return wallNanos;
+	}
+	
+	/**
+	 * @return the bytes allocated by the executing thread during the phase, or zero if allocations are not measured.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	
+	@Override
+	@NonNls
+	public String toString() {
+		return "BootRecord{" + "phase=" + phase + ", mod='" + mod + '\'' + ", module='" + module + '\'' + ", wallNanos=" + wallNanos + ", allocatedBytes=" + allocatedBytes + '}';
+	}
+}
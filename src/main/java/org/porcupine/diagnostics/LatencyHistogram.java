@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free histogram of durations in nanoseconds. Values are counted in logarithmic buckets, each split
+ * into eight linear sub-buckets, so every percentile is reported with a relative error of at most 12.5%. The maximum
+ * is tracked exactly.
+ *
+ * @author Milan Dierick
+ * @implNote Recording never allocates or blocks, so values can be recorded from any number of threads. A snapshot
+ * taken while values are being recorded may miss the most recent values.
+ */
+public final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+	
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong max;
+	
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(BUCKET_COUNT);
+		this.count = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+	
+	/**
+	 * @param nanos The duration to record, negative durations are recorded as zero.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		
+		counts.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		
+		long current = max.get();
+		
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+	
+	/**
+	 * @return the number of recorded durations.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * @return the longest recorded duration in nanoseconds.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * @param percentile The percentile to get, between 0 and 100.
+	 *
+	 * @return an upper bound of the given percentile of the recorded durations in nanoseconds, or zero if nothing has
+	 * been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		
+		if (total == 0) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+		long seen = 0;
+		
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), getMax());
+			}
+		}
+		
+		return getMax();
+	}
+	
+	/**
+	 * Discards every recorded duration.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		
+		count.set(0);
+		max.set(0);
+	}
+	
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		
+		int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+		
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+	
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		
+		return lowerBound + (1L << shift) - 1;
+	}
+}
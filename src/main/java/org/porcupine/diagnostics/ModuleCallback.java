@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+/**
+ * The callbacks of a module measured by the {@link ModuleProfiler} and the {@link AllocationProfiler}.
+ *
+ * @author Milan Dierick
+ */
+public enum ModuleCallback {
+	TICK,
+	RENDER,
+	SAVE,
+	LOAD,
+	EVENT
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The durations of every callback of a single module, recorded by the {@link ModuleProfiler}, and the memory they
+ * allocated, recorded by the {@link AllocationProfiler}.
+ *
+ * @author Milan Dierick
+ */
+public final class ModuleProfile {
+	private final String moduleName;
+	private final LatencyHistogram[] histograms;
+	private final LongAdder[] allocatedBytes;
+	private final AtomicLong firstAllocationNanos;
+	
+	ModuleProfile(String moduleName) {
+		int callbackCount = ModuleCallback.values().length;
+		
+		this.moduleName = moduleName;
+		this.histograms = new LatencyHistogram[callbackCount];
+		this.allocatedBytes = new LongAdder[callbackCount];
+		this.firstAllocationNanos = new AtomicLong();
+		
+		for (int i = 0; i < callbackCount; i++) {
+			histograms[i] = new LatencyHistogram();
+			allocatedBytes[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * @return the class name of the module.
+	 */
+	public String getModuleName() {
+		return moduleName;
+	}
+	
+	/**
+	 * @param callback The callback to get the durations of.
+	 *
+	 * @return the durations of the given callback.
+	 */
+	public LatencyHistogram getHistogram(ModuleCallback callback) {
+		return histograms[callback.ordinal()];
+	}
+	
+	/**
+	 * @param callback The callback to get the allocations of.
+	 *
+	 * @return the estimated number of bytes allocated by the given callback so far.
+	 */
+	public long getAllocatedBytes(ModuleCallback callback) {
+		return allocatedBytes[callback.ordinal()].sum();
+	}
+	
+	/**
+	 * @return the estimated number of bytes allocated by every callback so far.
+	 */
+	public long getAllocatedBytes() {
+		long total = 0;
+		
+		for (LongAdder bytes : allocatedBytes) {
+			total += bytes.sum();
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * @return the estimated number of bytes allocated per second, since the first allocation of the module was
+	 * recorded.
+	 */
+	public double getAllocationRate() {
+		long first = firstAllocationNanos.get();
+		
+		if (first == 0) {
+			return 0;
+		}
+		
+		long elapsed = Math.max(1, System.nanoTime() - first);
+		return getAllocatedBytes() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+	
+	void recordAllocation(ModuleCallback callback, long bytes) {
+		if (firstAllocationNanos.get() == 0) {
+			firstAllocationNanos.compareAndSet(0, System.nanoTime());
+		}
+		
+		allocatedBytes[callback.ordinal()].add(bytes);
+	}
+}
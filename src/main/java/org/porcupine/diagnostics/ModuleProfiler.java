@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the wall time of the tick, render, save, load and event callbacks of every module, see {@link ModuleCallback}.
+ * The durations of every module are kept in a {@link ModuleProfile}, which is available through
+ * {@link #getProfiles()}, and are logged periodically while the profiler is enabled.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * long start = ModuleProfiler.start();
+ * renderCapable.onRender(r, ds);
+ * ModuleProfiler.stop(renderCapable, ModuleCallback.RENDER, start);
+ * }</pre>
+ *
+ * @author Milan Dierick
+ * @implNote The profiler is enabled through {@link FrameworkSettings#isProfilerEnabled()}, which is only read once.
+ * While it is disabled, measuring a callback only costs a read of a constant. Profiles are kept per class name, so the
+ * profile of a module survives a hot reload.
+ */
+public final class ModuleProfiler {
+	private static final boolean ENABLED = FrameworkSettings.isProfilerEnabled();
+	private static final int LOGGED_MODULE_COUNT = 10;
+	
+	private static final Map<String, ModuleProfile> profiles = new ConcurrentHashMap<>();
+	private static final ClassValue<ModuleProfile> profilesByClass = new ClassValue<ModuleProfile>() {
+		@Override
+		protected ModuleProfile computeValue(Class<?> type) {
+			return profiles.computeIfAbsent(type.getName(), ModuleProfile::new);
+		}
+	};
+	
+	private static long lastLogNanos = System.nanoTime();
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private ModuleProfiler() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @return true if callbacks are being measured.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+	
+	/**
+	 * @return the start of a measurement, to be passed to {@link #stop(Object, ModuleCallback, long)}.
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * Records the duration of a callback since the given start.
+	 *
+	 * @param module   The module the callback was invoked on.
+	 * @param callback The callback that was invoked.
+	 * @param start    The value returned by {@link #start()} before the callback was invoked.
+	 */
+	public static void stop(Object module, ModuleCallback callback, long start) {
+		if (ENABLED) {
+			getProfile(module.getClass()).getHistogram(callback).record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * @param type The class of the module.
+	 *
+	 * @return the profile of the module, which is created if the module has not been measured before.
+	 */
+	static ModuleProfile getProfile(Class<?> type) {
+		return profilesByClass.get(type);
+	}
+	
+	/**
+	 * @return the profile of every module measured so far.
+	 */
+	public static List<ModuleProfile> getProfiles() {
+		return new ArrayList<>(profiles.values());
+	}
+	
+	/**
+	 * Logs the profiles of the most expensive modules, if the logging interval has passed since they were last logged.
+	 * Invoked on every game update.
+	 */
+	public static void logIfDue() {
+		if (!ENABLED) {
+			return;
+		}
+		
+		long now = System.nanoTime();
+		
+		if (now - lastLogNanos < FrameworkSettings.getProfilerLogIntervalNanos()) {
+			return;
+		}
+		
+		lastLogNanos = now;
+		
+		for (ModuleCallback callback : ModuleCallback.values()) {
+			profiles.values()
+					.stream()
+					.filter(profile -> profile.getHistogram(callback).getCount() > 0)
+					.sorted(Comparator.comparingLong((ModuleProfile profile) -> profile.getHistogram(callback).getPercentile(99)).reversed())
+					.limit(LOGGED_MODULE_COUNT)
+					.forEach(profile -> logProfile(profile, callback));
+		}
+	}
+	
+	private static void logProfile(ModuleProfile profile, ModuleCallback callback) {
+		LatencyHistogram histogram = profile.getHistogram(callback);
+		
+		Logger.info(
+				"%-6s %-50s n=%-8d p50=%8.3f ms p99=%8.3f ms max=%8.3f ms",
+				callback,
+				profile.getModuleName(),
+				histogram.getCount(),
+				toMillis(histogram.getPercentile(50)),
+				toMillis(histogram.getPercentile(99)),
+				toMillis(histogram.getMax())
+		);
+	}
+	
+	private static double toMillis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
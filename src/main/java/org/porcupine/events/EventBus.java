@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.porcupine.utilities.Logger;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A typed publish/subscribe event bus, which lets modules communicate without sharing state. Events are plain objects;
+ * a handler subscribed to a type receives every published event of that type and of its subtypes.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * EventBus.subscribe(RaidStarted.class, event -> ...);
+ * EventBus.publish(new RaidStarted(faction));
+ * }</pre>
+ * Published events are not delivered right away. They are collected and delivered in a batch, on the main thread, once
+ * the modules have been ticked during every game update. Events published while events are being delivered are
+ * delivered during the next update.
+ *
+ * @author Milan Dierick
+ * @implNote Events can be published from any thread. Every thread collects its events in its own buffer, so publishing
+ * threads never contend with each other. Events published by a single thread are delivered in the order they were
+ * published, events published by different threads are not ordered relative to each other. The handlers of every
+ * published type are resolved once and kept in an array until a handler is subscribed or unsubscribed, and an event
+ * without any handlers is discarded before it is buffered.
+ */
+public final class EventBus {
+	private static final IEventHandler<?>[] NO_HANDLERS = new IEventHandler<?>[0];
+	
+	private static final Map<Class<?>, List<IEventHandler<?>>> subscriptions = new LinkedHashMap<>();
+	private static final Map<Class<?>, IEventHandler<?>[]> resolvedHandlers = new ConcurrentHashMap<>();
+	private static final List<EventBuffer> buffers = new CopyOnWriteArrayList<>();
+	private static final ThreadLocal<EventBuffer> threadBuffer = ThreadLocal.withInitial(EventBus::createBuffer);
+	private static final List<Object> delivered = new ArrayList<>();
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private EventBus() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param type    The type of events to handle, including its subtypes.
+	 * @param handler The handler to invoke for every published event of the type.
+	 * @param <Event> The type of events to handle.
+	 */
+	public static synchronized <Event> void subscribe(Class<Event> type, IEventHandler<? super Event> handler) {
+		subscriptions.computeIfAbsent(type, key -> new ArrayList<>()).add(handler);
+		resolvedHandlers.clear();
+	}
+	
+	/**
+	 * @param type    The type the handler was subscribed to.
+	 * @param handler The handler to remove.
+	 */
+	public static synchronized void unsubscribe(Class<?> type, IEventHandler<?> handler) {
+		List<IEventHandler<?>> handlers = subscriptions.get(type);
+		
+		if (handlers != null && handlers.remove(handler)) {
+			if (handlers.isEmpty()) {
+				subscriptions.remove(type);
+			}
+			
+			resolvedHandlers.clear();
+		}
+	}
+	
+	/**
+	 * Removes every handler whose class was defined by the given class loader, for example because the mod it belongs
+	 * to was reloaded, along with every handler subscribed to an event type defined by that class loader. No reference
+	 * to the class loader is kept afterwards.
+	 *
+	 * @param classLoader The class loader of the handlers and event types to remove.
+	 */
+	public static synchronized void unsubscribeAll(ClassLoader classLoader) {
+		subscriptions.entrySet().removeIf(entry -> {
+			List<IEventHandler<?>> handlers = entry.getValue();
+			handlers.removeIf(handler -> handler.getClass().getClassLoader() == classLoader);
+			return handlers.isEmpty() || entry.getKey().getClassLoader() == classLoader;
+		});
+		
+		resolvedHandlers.clear();
+	}
+	
+	/**
+	 * Publishes the given event, which is delivered to its handlers during the next delivery. Can be invoked from any
+	 * thread.
+	 *
+	 * @param event The event to publish.
+	 */
+	public static void publish(Object event) {
+		if (resolve(event.getClass()).length > 0) {
+			threadBuffer.get().add(event);
+		}
+	}
+	
+	/**
+	 * @param type The type of events.
+	 *
+	 * @return true if any handler would receive a published event of the given type. Useful to skip creating events
+	 * nobody listens to.
+	 */
+	public static boolean hasSubscribers(Class<?> type) {
+		return resolve(type).length > 0;
+	}
+	
+	/**
+	 * Delivers every event published since the last delivery. Invoked on the main thread during every game update. A
+	 * handler that throws is logged, and does not keep the event from reaching the remaining handlers.
+	 */
+	public static void deliver() {
+		for (EventBuffer buffer : buffers) {
+			boolean abandoned = buffer.isAbandoned();
+			buffer.drainTo(delivered);
+			
+			if (abandoned) {
+				buffers.remove(buffer);
+			}
+		}
+		
+		try {
+			for (Object event : delivered) {
+				deliver(event);
+			}
+		} finally {
+			delivered.clear();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static void deliver(Object event) {
+		for (IEventHandler<?> handler : resolve(event.getClass())) {
+			try {
+				((IEventHandler<Object>) handler).onEvent(event);
+			} catch (RuntimeException e) {
+				Logger.error(
+						"Event handler %s failed to handle %s: %s",
+						handler.getClass().getName(),
+						event.getClass().getName(),
+						e
+				);
+			}
+		}
+	}
+	
+	/**
+	 * Removes every handler and discards every event that has not been delivered yet, for example when a game is
+	 * created or loaded.
+	 */
+	public static synchronized void clear() {
+		subscriptions.clear();
+		resolvedHandlers.clear();
+		
+		for (EventBuffer buffer : buffers) {
+			buffer.drainTo(delivered);
+		}
+		
+		delivered.clear();
+	}
+	
+	private static IEventHandler<?>[] resolve(Class<?> type) {
+		IEventHandler<?>[] handlers = resolvedHandlers.get(type);
+		return handlers != null ? handlers : resolveSubscriptions(type);
+	}
+	
+	/**
+	 * Collects the handlers of the given type and of all of its supertypes, in the order they were subscribed per type.
+	 */
+	private static synchronized IEventHandler<?>[] resolveSubscriptions(Class<?> type) {
+		List<IEventHandler<?>> handlers = new ArrayList<>();
+		
+		for (Map.Entry<Class<?>, List<IEventHandler<?>>> entry : subscriptions.entrySet()) {
+			if (entry.getKey().isAssignableFrom(type)) {
+				handlers.addAll(entry.getValue());
+			}
+		}
+		
+		IEventHandler<?>[] resolved = handlers.isEmpty() ? NO_HANDLERS : handlers.toArray(NO_HANDLERS);
+		resolvedHandlers.put(type, resolved);
+		return resolved;
+	}
+	
+	private static EventBuffer createBuffer() {
+		EventBuffer buffer = new EventBuffer();
+		buffers.add(buffer);
+		return buffer;
+	}
+	
+	/**
+	 * The events published by a single thread that have not been delivered yet. The buffer is dropped once its thread
+	 * has terminated and its last events have been delivered.
+	 */
+	private static final class EventBuffer {
+		private static final int INITIAL_CAPACITY = 16;
+		
+		private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+		private Object[] events = new Object[INITIAL_CAPACITY];
+		private int size = 0;
+		
+		private boolean isAbandoned() {
+			Thread thread = owner.get();
+			return thread == null || !thread.isAlive();
+		}
+		
+		private synchronized void add(Object event) {
+			if (size == events.length) {
+				events = Arrays.copyOf(events, size * 2);
+			}
+			
+			events[size++] = event;
+		}
+		
+		private synchronized void drainTo(List<Object> target) {
+			for (int i = 0; i < size; i++) {
+				target.add(events[i]);
+				events[i] = null;
+			}
+			
+			size = 0;
+		}
+	}
+}
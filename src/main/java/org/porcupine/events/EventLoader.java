@@ -4,33 +4,25 @@
 
 package org.porcupine.events;
 
-import init.paths.ModInfo;
-import init.paths.PATHS;
-import org.porcupine.io.FileManager;
+import org.porcupine.diagnostics.BootPhase;
+import org.porcupine.diagnostics.BootProfiler;
 import org.porcupine.modules.*;
-import org.porcupine.utilities.Version;
 
-import java.io.File;
-import java.net.*;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 
 @SuppressWarnings("BooleanVariableAlwaysNegated")
 public final class EventLoader {
-	private static final Collection<AggregateModuleInfo> moduleInfos;
 	private static final Collection<IGlobalEvent> globalEvents;
 	private static final Collection<IRoomEvent> roomEvents;
-	private static final Map<AggregateModuleInfo, Collection<String>> eventClasses;
+	private static final Map<AggregateModuleInfo, List<IGlobalEvent>> globalEventsPerMod;
+	private static final Map<AggregateModuleInfo, List<IRoomEvent>> roomEventsPerMod;
 	private static boolean eventsLoaded;
 	
 	static {
-		moduleInfos = new ArrayList<>();
 		globalEvents = new ArrayList<>();
 		roomEvents = new ArrayList<>();
-		eventClasses = new HashMap<>();
+		globalEventsPerMod = new LinkedHashMap<>();
+		roomEventsPerMod = new LinkedHashMap<>();
 		eventsLoaded = false;
 	}
 	
@@ -48,106 +40,61 @@ public final class EventLoader {
 		return Collections.unmodifiableCollection(roomEvents);
 	}
 	
-	private static void loadEvents() {
-		if (!eventsLoaded) {
-			createModuleInfos();
-			prepareEventClasses();
-			createEventInstances();
-			eventsLoaded = true;
-		}
+	/**
+	 * Instantiates the events of the given mod again, after its classes have been reloaded by the
+	 * {@link ModuleRegistry}. The previous events of the mod are discarded.
+	 *
+	 * @param info The reloaded mod.
+	 */
+	public static void reload(AggregateModuleInfo info) {
+		loadEvents();
+		createEventInstances(info);
+		collectEvents();
 	}
 	
-	private static void createModuleInfos() {
-		for (ModInfo info : PATHS.currentMods()) {
-			Path absolutePath = Paths.get(info.absolutePath, File.separator + "V63");
-			Path campaignsPath = absolutePath.resolve("campaigns");
-			Path examplesPath = absolutePath.resolve("examples");
-			Path savesPath = absolutePath.resolve("saves");
-			Path scriptsPath = absolutePath.resolve("script");
-			
-			Version version = new Version(info.version);
-			
-			AggregateModulePaths paths = new AggregateModulePaths(
-					absolutePath,
-					campaignsPath,
-					examplesPath,
-					savesPath,
-					scriptsPath
-			);
-			
-			Collection<JarFile> jarFiles = FileManager.getJarFilesInDirectory(paths.scriptsPath.resolve("jar"));
+	private static void loadEvents() {
+		if (!eventsLoaded) {
+			for (AggregateModuleInfo info : ModuleRegistry.getModuleInfos()) {
+				createEventInstances(info);
+			}
 			
-			moduleInfos.add(new AggregateModuleInfo(
-					info.name,
-					info.desc,
-					info.author,
-					version,
-					paths,
-					jarFiles
-			));
+			collectEvents();
+			eventsLoaded = true;
 		}
 	}
 	
-	@SuppressWarnings({"DynamicRegexReplaceableByCompiledPattern", "HardcodedFileSeparator"})
-	private static void prepareEventClasses() {
-		for (AggregateModuleInfo info : moduleInfos) {
-			Collection<String> classNames = new ArrayList<>();
-			
-			for (JarFile jarFile : info.jarFiles) {
-				Enumeration<JarEntry> entries = jarFile.entries();
-				
-				while (entries.hasMoreElements()) {
-					JarEntry entry = entries.nextElement();
-					
-					if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
-						continue;
-					}
-					
-					String className = entry.getName().replace(".class", "").replace('/', '.');
-					
-					if (className.contains("package-info")) {
-						continue;
-					}
-					
-					classNames.add(className);
-				}
+	/**
+	 * Instantiates every event class of the given mod discovered by the {@link ModuleRegistry}.
+	 */
+	private static void createEventInstances(AggregateModuleInfo info) {
+		List<IGlobalEvent> modGlobalEvents = new ArrayList<>();
+		List<IRoomEvent> modRoomEvents = new ArrayList<>();
+		
+		BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.EVENT_INSTANTIATION, info.name, null);
+		
+		try {
+			for (Class<? extends IGlobalEvent> clazz : ModuleRegistry.getGlobalEventClasses(info)) {
+				modGlobalEvents.add(clazz.getConstructor().newInstance());
 			}
 			
-			eventClasses.put(info, classNames);
-		}
-	}
-	
-	private static void createEventInstances() {
-		for (AggregateModuleInfo info : moduleInfos) {
-			for (String className : eventClasses.get(info)) {
-				try (URLClassLoader classLoader = createLoader()) {
-					Class<?> clazz = classLoader.loadClass(className);
-					
-					if (IGlobalEvent.class.isAssignableFrom(clazz) && !clazz.isInterface()) {
-						IGlobalEvent event = (IGlobalEvent) clazz.getConstructor().newInstance();
-						globalEvents.add(event);
-					} else if (IRoomEvent.class.isAssignableFrom(clazz) && !clazz.isInterface()) {
-						IRoomEvent event = (IRoomEvent) clazz.getConstructor().newInstance();
-						roomEvents.add(event);
-					}
-				} catch (Exception e) {
-					throw new IllegalArgumentException(e);
-				}
+			for (Class<? extends IRoomEvent> clazz : ModuleRegistry.getRoomEventClasses(info)) {
+				modRoomEvents.add(clazz.getConstructor().newInstance());
 			}
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		} finally {
+			measurement.stop();
 		}
+		
+		globalEventsPerMod.put(info, modGlobalEvents);
+		roomEventsPerMod.put(info, modRoomEvents);
 	}
 	
-	private static URLClassLoader createLoader() {
-		URL[] urls = moduleInfos.stream()
-				.flatMap(moduleInfo -> moduleInfo.jarFiles.stream())
-				.map(jarFile -> {
-					try {
-						return new File(jarFile.getName()).toURI().toURL();
-					} catch (MalformedURLException e) {
-						throw new RuntimeException(e);
-					}
-				}).toArray(URL[]::new);
+	private static void collectEvents() {
+		globalEvents.clear();
+		roomEvents.clear();
 		
-		return new URLClassLoader(urls, AggregateModuleLoader.class.getClassLoader());
+		globalEventsPerMod.values().forEach(globalEvents::addAll);
+		roomEventsPerMod.values().forEach(roomEvents::addAll);
 	}
 }
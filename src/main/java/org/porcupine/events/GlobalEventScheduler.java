@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.porcupine.diagnostics.AllocationProfiler;
+import org.porcupine.diagnostics.ModuleCallback;
+import org.porcupine.diagnostics.ModuleProfiler;
+import org.porcupine.utilities.RandomService;
+import org.porcupine.utilities.RandomStream;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Fires {@link IGlobalEvent}s at the rate they declare through {@link IGlobalEvent#chancePerSecond()}. Rather than
+ * rolling a die for every event on every update, the time until the next occurrence of an event is drawn from an
+ * exponential distribution, and the events are kept in a queue ordered by the game time they occur at. An update only
+ * touches the events that are due.
+ * <p>
+ * The rate of an event is read when it is scheduled. An event whose rate changed is scheduled again on the next update
+ * after {@link #notifyRateChanged(IGlobalEvent)}, and at the latest when the rates of all events are checked, once
+ * every {@value #RATE_CHECK_INTERVAL} updates.
+ *
+ * @author Milan Dierick
+ * @implNote Occurrences of an event with a fixed rate form a Poisson process, so the time until the next occurrence
+ * does not depend on the time since the previous one. Rescheduling an event from the current game time is therefore
+ * always correct, and several occurrences of a frequent event are fired in a single long update. Every event draws its
+ * times from its own {@link RandomStream}, separate from the stream the event may draw from itself, so the occurrences
+ * of an event do not depend on the other events or on the event itself. When a game is loaded, every event is
+ * scheduled again from its restored stream, so a save always plays out the same way.
+ */
+public final class GlobalEventScheduler {
+	private static final String STREAM_KEY_PREFIX = "porcupine:global-event:";
+	private static final int RATE_CHECK_INTERVAL = 30;
+	private static final Queue<IGlobalEvent> changedRates = new ConcurrentLinkedQueue<>();
+	
+	private final List<ScheduledEvent> events;
+	private final Map<IGlobalEvent, ScheduledEvent> scheduledEvents;
+	private final PriorityQueue<ScheduledEvent> queue;
+	private final Function<Object, RandomStream> streams;
+	private double gameTime;
+	private int updatesSinceRateCheck;
+	
+	/**
+	 * @param events The events to fire.
+	 */
+	public GlobalEventScheduler(Collection<IGlobalEvent> events) {
+		this(events, event -> RandomService.getStream(STREAM_KEY_PREFIX + event.getClass().getName()));
+	}
+	
+	/**
+	 * @param events  The events to fire.
+	 * @param streams The source of the random stream of every event.
+	 */
+	GlobalEventScheduler(Collection<IGlobalEvent> events, Function<Object, RandomStream> streams) {
+		this.events = new ArrayList<>();
+		this.scheduledEvents = new IdentityHashMap<>();
+		this.queue = new PriorityQueue<>(
+				Comparator.comparingDouble((ScheduledEvent event) -> event.fireTime).thenComparingLong(event -> event.sequence)
+		);
+		this.streams = streams;
+		this.gameTime = 0;
+		this.updatesSinceRateCheck = 0;
+		
+		reset(events);
+	}
+	
+	/**
+	 * Replaces the scheduled events, for example after the events of a mod have been reloaded or the random streams of
+	 * the events have been loaded. Every event is scheduled from the current game time.
+	 *
+	 * @param events The events to fire.
+	 */
+	public void reset(Collection<IGlobalEvent> events) {
+		this.events.clear();
+		this.scheduledEvents.clear();
+		this.queue.clear();
+		
+		for (IGlobalEvent event : events) {
+			ScheduledEvent scheduled = new ScheduledEvent(event, streams.apply(event), this.events.size());
+			this.events.add(scheduled);
+			this.scheduledEvents.put(event, scheduled);
+			schedule(scheduled, event.chancePerSecond());
+		}
+	}
+	
+	/**
+	 * Schedules the given event again with its current rate, on the next update. Can be invoked from any thread.
+	 *
+	 * @param event The event whose {@link IGlobalEvent#chancePerSecond()} changed, ignored if it is not scheduled.
+	 */
+	public static void notifyRateChanged(IGlobalEvent event) {
+		changedRates.add(event);
+	}
+	
+	/**
+	 * Fires every event that occurs during the given time.
+	 *
+	 * @param ds The time in seconds since the last game update, zero while the game is paused.
+	 */
+	public void update(double ds) {
+		IGlobalEvent changed;
+		
+		while ((changed = changedRates.poll()) != null) {
+			ScheduledEvent scheduled = scheduledEvents.get(changed);
+			
+			if (scheduled != null) {
+				reschedule(scheduled, changed.chancePerSecond());
+			}
+		}
+		
+		if (++updatesSinceRateCheck >= RATE_CHECK_INTERVAL) {
+			updatesSinceRateCheck = 0;
+			checkRates();
+		}
+		
+		gameTime += ds;
+		
+		while (!queue.isEmpty() && queue.peek().fireTime <= gameTime) {
+			ScheduledEvent scheduled = queue.poll();
+			scheduled.queued = false;
+			fire(scheduled.event);
+			
+			float rate = scheduled.event.chancePerSecond();
+			enqueue(scheduled, rate, scheduled.fireTime + sampleInterval(scheduled.random, rate));
+		}
+	}
+	
+	private static void fire(IGlobalEvent event) {
+		long allocationStart = AllocationProfiler.start();
+		long start = ModuleProfiler.start();
+		event.onEvent();
+		ModuleProfiler.stop(event, ModuleCallback.EVENT, start);
+		AllocationProfiler.stop(event, ModuleCallback.EVENT, allocationStart);
+	}
+	
+	/**
+	 * Schedules every event whose rate no longer matches the rate it was scheduled with again.
+	 */
+	private void checkRates() {
+		for (ScheduledEvent scheduled : events) {
+			float rate = scheduled.event.chancePerSecond();
+			
+			if (rate != scheduled.rate) {
+				reschedule(scheduled, rate);
+			}
+		}
+	}
+	
+	private void reschedule(ScheduledEvent scheduled, float rate) {
+		if (scheduled.queued) {
+			queue.remove(scheduled);
+			scheduled.queued = false;
+		}
+		
+		schedule(scheduled, rate);
+	}
+	
+	private void schedule(ScheduledEvent scheduled, float rate) {
+		enqueue(scheduled, rate, gameTime + sampleInterval(scheduled.random, rate));
+	}
+	
+	private void enqueue(ScheduledEvent scheduled, float rate, double fireTime) {
+		scheduled.rate = rate;
+		scheduled.fireTime = fireTime;
+		
+		if (rate > 0) {
+			queue.add(scheduled);
+			scheduled.queued = true;
+		}
+	}
+	
+	/**
+	 * @return the time until the next occurrence of an event with the given rate, or infinity if it never occurs.
+	 */
+	private static double sampleInterval(RandomStream random, float rate) {
+		if (rate <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		
+		return -Math.log(1 - random.nextDouble()) / rate;
+	}
+	
+	private static final class ScheduledEvent {
+		private final IGlobalEvent event;
+		private final RandomStream random;
+		private final long sequence;
+		private float rate;
+		private double fireTime;
+		private boolean queued;
+		
+		private ScheduledEvent(IGlobalEvent event, RandomStream random, long sequence) {
+			this.event = event;
+			this.random = random;
+			this.sequence = sequence;
+			this.rate = 0;
+			this.fireTime = Double.POSITIVE_INFINITY;
+			this.queued = false;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+/**
+ * Handles the events of a single type published on the {@link EventBus}.
+ *
+ * @param <Event> The type of event handled.
+ *
+ * @author Milan Dierick
+ */
+@FunctionalInterface
+public interface IEventHandler<Event> {
+	/**
+	 * This method is called on the main thread for every published event of the subscribed type or any of its
+	 * subtypes.
+	 *
+	 * @param event the published event.
+	 */
+	void onEvent(Event event);
+}
@@ -13,6 +13,9 @@ public interface IGlobalEvent {
 	
 	/**
 	 * @return the chance that this event will occur per in-game second.
+	 *
+	 * @apiNote The chance is not read on every update. Call {@link GlobalEventScheduler#notifyRateChanged(IGlobalEvent)}
+	 * when it changes, or the change is picked up within a few updates.
 	 */
 	float chancePerSecond();
 }
@@ -15,7 +15,21 @@ public interface IRoomEvent {
 	void onEvent(RoomInstance instance);
 	
 	/**
-	 * @return the chance that this event will occur per in-game second.
+	 * This method is called when the event occurs for every instance in a range of consecutive instances, instead of
+	 * {@link #onEvent(RoomInstance)} for each of them. Override it to handle the whole range at once.
+	 *
+	 * @param blueprint the type of room that this event is associated with.
+	 * @param from      the index of the first instance in the range, inclusive.
+	 * @param to        the index of the last instance in the range, exclusive.
+	 */
+	default void onEventBatch(RoomBlueprintIns<?> blueprint, int from, int to) {
+		for (int i = from; i < to; i++) {
+			onEvent(blueprint.getInstance(i));
+		}
+	}
+	
+	/**
+	 * @return the chance that this event will occur per in-game second, for every instance of the room.
 	 */
 	float chancePerSecond();
 	
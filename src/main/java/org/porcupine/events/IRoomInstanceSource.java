@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.jetbrains.annotations.Nullable;
+import settlement.room.main.RoomBlueprintIns;
+
+/**
+ * Reads the instances of a blueprint for the {@link RoomIndex} and the {@link RoomEventDispatcher}, which are handed
+ * another source in tests, where the game is not running.
+ *
+ * @author Milan Dierick
+ */
+interface IRoomInstanceSource {
+	/**
+	 * Reads the instances of the blueprints of the game.
+	 */
+	IRoomInstanceSource GAME = new IRoomInstanceSource() {
+		@Override
+		public int getInstanceCount(RoomBlueprintIns<?> blueprint) {
+			return blueprint.instancesSize();
+		}
+		
+		@Override
+		public @Nullable Object getInstance(RoomBlueprintIns<?> blueprint, int index) {
+			return blueprint.getInstance(index);
+		}
+	};
+	
+	/**
+	 * @return the number of instances of the given blueprint, including empty ones.
+	 */
+	int getInstanceCount(RoomBlueprintIns<?> blueprint);
+	
+	/**
+	 * @return the instance of the given blueprint at the given index, or null if there is no room at that index.
+	 */
+	@Nullable Object getInstance(RoomBlueprintIns<?> blueprint, int index);
+}
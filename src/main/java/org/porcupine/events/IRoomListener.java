@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+/**
+ * Receives the rooms that are built and destroyed, as detected by the {@link RoomIndex}.
+ *
+ * @author Milan Dierick
+ */
+public interface IRoomListener {
+	/**
+	 * This method is called when a room is built, and for every existing room when the listener is added.
+	 *
+	 * @param room the handle of the room.
+	 */
+	default void onRoomAdded(RoomHandle room) {
+	}
+	
+	/**
+	 * This method is called when a room is destroyed.
+	 *
+	 * @param room the handle of the room, which is no longer valid.
+	 */
+	default void onRoomRemoved(RoomHandle room) {
+	}
+}
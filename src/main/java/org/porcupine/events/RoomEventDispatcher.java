@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.porcupine.diagnostics.AllocationProfiler;
+import org.porcupine.diagnostics.ModuleCallback;
+import org.porcupine.diagnostics.ModuleProfiler;
+import org.porcupine.utilities.RandomService;
+import org.porcupine.utilities.RandomStream;
+import settlement.room.main.RoomBlueprintIns;
+import settlement.room.main.RoomInstance;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Fires {@link IRoomEvent}s for the instances of their room at the rate they declare through
+ * {@link IRoomEvent#chancePerSecond()}. Every instance has the same chance of the event occurring during an update,
+ * independently of the other instances. Rather than rolling a die for every instance, the number of instances to skip
+ * until the next one the event occurs for is drawn from a geometric distribution, so an update only touches the
+ * instances the event actually occurs for. Every event draws from its own {@link RandomStream}, separate from the
+ * stream the event may draw from itself.
+ * <p>
+ * Events are grouped by their room when they are added. The events of a room share a single pass over its instances,
+ * in which every instance is looked up once and handed to every event occurring for it. Events that override
+ * {@link IRoomEvent#onEventBatch(RoomBlueprintIns, int, int)} are handed every run of consecutive instances they occur
+ * for at once instead.
+ *
+ * @author Milan Dierick
+ */
+public final class RoomEventDispatcher {
+	private static final String STREAM_KEY_PREFIX = "porcupine:room-event:";
+	
+	private final List<RoomEventGroup> groups;
+	private final Function<Object, RandomStream> streams;
+	private final IRoomInstanceSource instances;
+	
+	/**
+	 * @param events The events to fire.
+	 */
+	public RoomEventDispatcher(Collection<IRoomEvent> events) {
+		this(
+				events,
+				event -> RandomService.getStream(STREAM_KEY_PREFIX + event.getClass().getName()),
+				IRoomInstanceSource.GAME
+		);
+	}
+	
+	/**
+	 * @param events    The events to fire.
+	 * @param streams   The source of the random stream of every event.
+	 * @param instances The source the instances of the rooms are read from.
+	 */
+	RoomEventDispatcher(
+			Collection<IRoomEvent> events,
+			Function<Object, RandomStream> streams,
+			IRoomInstanceSource instances
+	) {
+		this.groups = new ArrayList<>();
+		this.streams = streams;
+		this.instances = instances;
+		
+		reset(events);
+	}
+	
+	/**
+	 * Replaces the dispatched events, for example after the events of a mod have been reloaded.
+	 *
+	 * @param events The events to fire.
+	 */
+	public void reset(Collection<IRoomEvent> events) {
+		Map<RoomBlueprintIns<?>, List<IRoomEvent>> eventsPerRoom = new LinkedHashMap<>();
+		
+		for (IRoomEvent event : events) {
+			eventsPerRoom.computeIfAbsent(event.getRoomType(), blueprint -> new ArrayList<>()).add(event);
+		}
+		
+		groups.clear();
+		eventsPerRoom.forEach((blueprint, roomEvents) -> groups.add(new RoomEventGroup(blueprint, roomEvents)));
+	}
+	
+	/**
+	 * Fires every event for the room instances it occurs for during the given time.
+	 *
+	 * @param ds The time in seconds since the last game update, zero while the game is paused.
+	 */
+	public void update(double ds) {
+		if (ds <= 0) {
+			return;
+		}
+		
+		for (RoomEventGroup group : groups) {
+			group.dispatch(ds);
+		}
+	}
+	
+	/**
+	 * @return true if the given event overrides {@link IRoomEvent#onEventBatch(RoomBlueprintIns, int, int)}.
+	 */
+	static boolean overridesBatch(IRoomEvent event) {
+		try {
+			Class<?> declaringClass = event.getClass()
+					.getMethod("onEventBatch", RoomBlueprintIns.class, int.class, int.class)
+					.getDeclaringClass();
+			return declaringClass != IRoomEvent.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * The events of a single room, along with the index of the next instance every event occurs for during the
+	 * current update.
+	 */
+	private final class RoomEventGroup {
+		private final RoomBlueprintIns<?> blueprint;
+		private final IRoomEvent[] events;
+		private final RandomStream[] randoms;
+		private final boolean[] batched;
+		private final double[] probabilities;
+		private final long[] next;
+		
+		private RoomEventGroup(RoomBlueprintIns<?> blueprint, List<IRoomEvent> events) {
+			this.blueprint = blueprint;
+			this.events = events.toArray(new IRoomEvent[0]);
+			this.randoms = new RandomStream[this.events.length];
+			this.batched = new boolean[this.events.length];
+			this.probabilities = new double[this.events.length];
+			this.next = new long[this.events.length];
+			
+			for (int i = 0; i < this.events.length; i++) {
+				randoms[i] = streams.apply(this.events[i]);
+				batched[i] = overridesBatch(this.events[i]);
+			}
+		}
+		
+		/**
+		 * Fires every event for the instances it occurs for during the given time.
+		 */
+		private void dispatch(double ds) {
+			int size = instances.getInstanceCount(blueprint);
+			
+			if (size <= 0) {
+				return;
+			}
+			
+			boolean anyOccurs = false;
+			
+			for (int i = 0; i < next.length; i++) {
+				float rate = events[i].chancePerSecond();
+				
+				if (rate <= 0) {
+					next[i] = Long.MAX_VALUE;
+					continue;
+				}
+				
+				probabilities[i] = SkipSampler.probability(rate, ds);
+				
+				if (batched[i]) {
+					dispatchBatches(i, size);
+					next[i] = Long.MAX_VALUE;
+				} else {
+					next[i] = SkipSampler.skip(probabilities[i], randoms[i].nextDouble());
+					anyOccurs |= next[i] < size;
+				}
+			}
+			
+			if (anyOccurs) {
+				dispatchInstances(size);
+			}
+		}
+		
+		/**
+		 * Walks the instances of the room once, handing every instance to the events occurring for it.
+		 */
+		private void dispatchInstances(int size) {
+			while (true) {
+				long index = Long.MAX_VALUE;
+				
+				for (long instanceIndex : next) {
+					index = Math.min(index, instanceIndex);
+				}
+				
+				if (index >= size) {
+					return;
+				}
+				
+				RoomInstance instance = (RoomInstance) instances.getInstance(blueprint, (int) index);
+				
+				for (int i = 0; i < next.length; i++) {
+					if (next[i] == index) {
+						fire(events[i], instance);
+						long skip = SkipSampler.skip(probabilities[i], randoms[i].nextDouble());
+						next[i] += 1 + skip;
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Hands every run of consecutive instances the given event occurs for to the event at once.
+		 */
+		private void dispatchBatches(int event, int size) {
+			double probability = probabilities[event];
+			RandomStream random = randoms[event];
+			long from = SkipSampler.skip(probability, random.nextDouble());
+			
+			while (from < size) {
+				long to = from + 1;
+				long skip = 0;
+				
+				while (to < size && (skip = SkipSampler.skip(probability, random.nextDouble())) == 0) {
+					to++;
+				}
+				
+				fireBatch(events[event], (int) from, (int) to);
+				from = to + skip;
+			}
+		}
+		
+		private void fire(IRoomEvent event, RoomInstance instance) {
+			long allocationStart = AllocationProfiler.start();
+			long start = ModuleProfiler.start();
+			event.onEvent(instance);
+			ModuleProfiler.stop(event, ModuleCallback.EVENT, start);
+			AllocationProfiler.stop(event, ModuleCallback.EVENT, allocationStart);
+		}
+		
+		private void fireBatch(IRoomEvent event, int from, int to) {
+			long allocationStart = AllocationProfiler.start();
+			long start = ModuleProfiler.start();
+			event.onEventBatch(blueprint, from, to);
+			ModuleProfiler.stop(event, ModuleCallback.EVENT, start);
+			AllocationProfiler.stop(event, ModuleCallback.EVENT, allocationStart);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.jetbrains.annotations.NonNls;
+import settlement.room.main.RoomBlueprintIns;
+import settlement.room.main.RoomInstance;
+
+/**
+ * A stable handle of a single room tracked by the {@link RoomIndex}. The handle of a room stays the same for as long as
+ * the room exists, even if the index of the room within its blueprint changes.
+ *
+ * @author Milan Dierick
+ */
+public final class RoomHandle {
+	private final long id;
+	private final RoomBlueprintIns<?> blueprint;
+	private final Object instance;
+	private int index;
+	private boolean valid;
+	
+	RoomHandle(long id, RoomBlueprintIns<?> blueprint, Object instance) {
+		this.id = id;
+		this.blueprint = blueprint;
+		this.instance = instance;
+		this.index = -1;
+		this.valid = true;
+	}
+	
+	/**
+	 * @return a number identifying the room, unique for as long as the game runs.
+	 */
+	public long getId() {
+		return id;
+	}
+	
+	public RoomBlueprintIns<?> getBlueprint() {
+		return blueprint;
+	}
+	
+	public RoomInstance getInstance() {
+		return (RoomInstance) instance;
+	}
+	
+	/**
+	 * @return the object identifying the room within the {@link RoomIndex}, which is its instance.
+	 */
+	Object getKey() {
+		return instance;
+	}
+	
+	/**
+	 * @return the index of the room within its blueprint, as of the last update of the {@link RoomIndex}.
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * @return true if the room still exists, false once it has been destroyed.
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+	
+	void setIndex(int index) {
+		this.index = index;
+	}
+	
+	void invalidate() {
+		this.valid = false;
+		this.index = -1;
+	}
+	
+	@Override
+	@NonNls
+	public String toString() {
+		return "RoomHandle{" + "id=" + id + ", index=" + index + ", valid=" + valid + '}';
+	}
+}
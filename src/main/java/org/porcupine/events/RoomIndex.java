@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.jetbrains.annotations.Nullable;
+import settlement.room.main.RoomBlueprintIns;
+import settlement.room.main.RoomInstance;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps track of the rooms of every blueprint a module is interested in, and notifies {@link IRoomListener}s when a
+ * room is built or destroyed. Every room has a {@link RoomHandle} that stays the same for as long as the room exists.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * RoomIndex.addListener(blueprint, new IRoomListener() {
+ *     public void onRoomAdded(RoomHandle room) {
+ *         // ...
+ *     }
+ * });
+ * }</pre>
+ *
+ * @author Milan Dierick
+ * @implNote A blueprint is tracked from the moment a listener is added for it or its rooms are requested. On every
+ * update the number of instances of every tracked blueprint is compared to the number of known rooms, and the identity
+ * of the last instance and of {@value #VERIFIED_PER_UPDATE} more instances, in turn, is compared to the known rooms.
+ * Only when either differs are the instances of the blueprint compared to the known rooms as a whole. Empty slots of a
+ * blueprint are known as well, so they never trigger a comparison by themselves. A room replaced by another one at the
+ * same index is therefore noticed within a number of updates proportional to the number of rooms. The index is only
+ * used from the main thread.
+ */
+public final class RoomIndex {
+	private static final int VERIFIED_PER_UPDATE = 16;
+	
+	private static final Map<RoomBlueprintIns<?>, TrackedRooms> trackedBlueprints = new LinkedHashMap<>();
+	private static final Map<Object, RoomHandle> handles = new IdentityHashMap<>();
+	private static long nextId = 0;
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private RoomIndex() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * Starts notifying the given listener of the rooms of the given blueprint that are built and destroyed. The
+	 * listener is notified of every existing room right away.
+	 *
+	 * @param blueprint The blueprint to track the rooms of.
+	 * @param listener  The listener to notify.
+	 */
+	public static void addListener(RoomBlueprintIns<?> blueprint, IRoomListener listener) {
+		track(blueprint).addListener(listener);
+	}
+	
+	/**
+	 * @param blueprint The blueprint the listener was added for.
+	 * @param listener  The listener to stop notifying.
+	 */
+	public static void removeListener(RoomBlueprintIns<?> blueprint, IRoomListener listener) {
+		TrackedRooms tracked = trackedBlueprints.get(blueprint);
+		
+		if (tracked != null) {
+			tracked.listeners.remove(listener);
+		}
+	}
+	
+	/**
+	 * Stops notifying every listener whose class was defined by the given class loader, for example because the mod
+	 * it belongs to was reloaded.
+	 *
+	 * @param classLoader The class loader of the listeners to remove.
+	 */
+	public static void removeListeners(ClassLoader classLoader) {
+		for (TrackedRooms tracked : trackedBlueprints.values()) {
+			tracked.listeners.removeIf(listener -> listener.getClass().getClassLoader() == classLoader);
+		}
+	}
+	
+	/**
+	 * @param blueprint The blueprint to get the rooms of.
+	 *
+	 * @return the handles of the rooms of the blueprint, ordered by their index within the blueprint.
+	 */
+	public static List<RoomHandle> getRooms(RoomBlueprintIns<?> blueprint) {
+		return Collections.unmodifiableList(track(blueprint).rooms);
+	}
+	
+	/**
+	 * @param instance The instance of a room.
+	 *
+	 * @return the handle of the room, or null if its blueprint is not tracked or the room was built since the last
+	 * update.
+	 */
+	public static @Nullable RoomHandle getHandle(RoomInstance instance) {
+		return handles.get(instance);
+	}
+	
+	/**
+	 * Detects the rooms of every tracked blueprint that were built or destroyed since the last update, and notifies
+	 * the listeners of the blueprint. Invoked on every game update.
+	 */
+	public static void update() {
+		for (TrackedRooms tracked : trackedBlueprints.values()) {
+			tracked.update();
+		}
+	}
+	
+	/**
+	 * Forgets every tracked blueprint and listener, for example when a game is created or loaded.
+	 */
+	public static void clear() {
+		trackedBlueprints.clear();
+		handles.clear();
+	}
+	
+	private static TrackedRooms track(RoomBlueprintIns<?> blueprint) {
+		TrackedRooms tracked = trackedBlueprints.get(blueprint);
+		
+		if (tracked == null) {
+			tracked = new TrackedRooms(blueprint, IRoomInstanceSource.GAME);
+			trackedBlueprints.put(blueprint, tracked);
+			tracked.rebuild();
+		}
+		
+		return tracked;
+	}
+	
+	/**
+	 * The known rooms of a single blueprint and its listeners.
+	 */
+	static final class TrackedRooms {
+		private final RoomBlueprintIns<?> blueprint;
+		private final IRoomInstanceSource instances;
+		private final List<RoomHandle> slots;
+		private final List<RoomHandle> rooms;
+		private final List<IRoomListener> listeners;
+		private int verifyCursor;
+		
+		/**
+		 * @param blueprint The blueprint to track the rooms of.
+		 * @param instances The source the instances of the blueprint are read from.
+		 */
+		TrackedRooms(RoomBlueprintIns<?> blueprint, IRoomInstanceSource instances) {
+			this.blueprint = blueprint;
+			this.instances = instances;
+			this.slots = new ArrayList<>();
+			this.rooms = new ArrayList<>();
+			this.listeners = new CopyOnWriteArrayList<>();
+			this.verifyCursor = 0;
+		}
+		
+		/**
+		 * Starts notifying the given listener, and notifies it of every known room right away.
+		 */
+		void addListener(IRoomListener listener) {
+			listeners.add(listener);
+			
+			for (RoomHandle room : rooms) {
+				listener.onRoomAdded(room);
+			}
+		}
+		
+		/**
+		 * @return the handles of the known rooms, ordered by their index within the blueprint.
+		 */
+		List<RoomHandle> getRooms() {
+			return Collections.unmodifiableList(rooms);
+		}
+		
+		/**
+		 * Compares the instances to the known rooms, and rebuilds the rooms if they may no longer match.
+		 */
+		void update() {
+			if (isChanged()) {
+				rebuild();
+			}
+		}
+		
+		/**
+		 * Compares the instances of the blueprint to its known rooms as a whole, and notifies the listeners of the
+		 * rooms that were destroyed and built.
+		 */
+		void rebuild() {
+			Map<Object, RoomHandle> previous = new IdentityHashMap<>();
+			List<RoomHandle> added = new ArrayList<>();
+			
+			for (RoomHandle room : rooms) {
+				previous.put(room.getKey(), room);
+			}
+			
+			slots.clear();
+			rooms.clear();
+			int size = instances.getInstanceCount(blueprint);
+			
+			for (int i = 0; i < size; i++) {
+				Object instance = instances.getInstance(blueprint, i);
+				
+				if (instance == null) {
+					slots.add(null);
+					continue;
+				}
+				
+				RoomHandle room = previous.remove(instance);
+				
+				if (room == null) {
+					room = new RoomHandle(nextId++, blueprint, instance);
+					handles.put(instance, room);
+					added.add(room);
+				}
+				
+				room.setIndex(i);
+				slots.add(room);
+				rooms.add(room);
+			}
+			
+			for (RoomHandle room : previous.values()) {
+				room.invalidate();
+				handles.remove(room.getKey());
+				
+				for (IRoomListener listener : listeners) {
+					listener.onRoomRemoved(room);
+				}
+			}
+			
+			for (RoomHandle room : added) {
+				for (IRoomListener listener : listeners) {
+					listener.onRoomAdded(room);
+				}
+			}
+		}
+		
+		/**
+		 * @return true if the instances of the blueprint may no longer match the known rooms.
+		 */
+		private boolean isChanged() {
+			int size = instances.getInstanceCount(blueprint);
+			
+			if (size != slots.size()) {
+				return true;
+			}
+			
+			if (size == 0) {
+				return false;
+			}
+			
+			if (!isKnown(size - 1)) {
+				return true;
+			}
+			
+			for (int i = 0; i < Math.min(size, VERIFIED_PER_UPDATE); i++) {
+				verifyCursor = verifyCursor + 1 < size ? verifyCursor + 1 : 0;
+				
+				if (!isKnown(verifyCursor)) {
+					return true;
+				}
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * @return true if the instance at the given index is the room known at that index, or both are empty.
+		 */
+		private boolean isKnown(int index) {
+			RoomHandle slot = slots.get(index);
+			Object instance = instances.getInstance(blueprint, index);
+			return slot != null ? slot.getKey() == instance : instance == null;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+/**
+ * Draws the number of trials to skip before the next success in a series of independent trials that each succeed with
+ * the same probability, which follows a geometric distribution. Iterating only over the successes of a series is
+ * proportional to the number of successes rather than to the length of the series.
+ *
+ * @author Milan Dierick
+ */
+final class SkipSampler {
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private SkipSampler() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param probability The probability that a single trial succeeds.
+	 * @param uniform     A uniformly distributed number between zero (inclusive) and one (exclusive).
+	 *
+	 * @return the number of failed trials before the next success, or {@link Integer#MAX_VALUE} if no trial succeeds.
+	 */
+	static int skip(double probability, double uniform) {
+		if (probability >= 1) {
+			return 0;
+		}
+		
+		if (probability <= 0) {
+			return Integer.MAX_VALUE;
+		}
+		
+		double skip = Math.floor(Math.log(1 - uniform) / Math.log1p(-probability));
+		return skip < Integer.MAX_VALUE ? (int) skip : Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * @param rate    The number of occurrences per second.
+	 * @param seconds The length of the interval in seconds.
+	 *
+	 * @return the probability that something occurring at the given rate occurs at least once during the interval.
+	 */
+	static double probability(double rate, double seconds) {
+		return -Math.expm1(-rate * seconds);
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.io;
+
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The header of a class file: its access flags, name, superclass and directly implemented interfaces. The header is
+ * read straight from the bytes of the class file, without loading, linking or initializing the class.
+ *
+ * @author Milan Dierick
+ * @see <a href="https://docs.oracle.com/javase/specs/jvms/se8/html/jvms-4.html">The class file format</a>
+ */
+public final class ClassFileHeader {
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+	private static final int ACC_ANNOTATION = 0x2000;
+	
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELD_REF = 9;
+	private static final int CONSTANT_METHOD_REF = 10;
+	private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+	
+	private final int accessFlags;
+	private final String name;
+	private final @Nullable String superName;
+	private final List<String> interfaceNames;
+	
+	private ClassFileHeader(int accessFlags, String name, @Nullable String superName, List<String> interfaceNames) {
+		this.accessFlags = accessFlags;
+		this.name = name;
+		this.superName = superName;
+		this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+	}
+	
+	/**
+	 * Reads the header of a class file. Only the constant pool and the fields directly following it are read, the
+	 * remainder of the stream is left untouched.
+	 *
+	 * @param stream The stream positioned at the start of the class file.
+	 *
+	 * @return the header of the class file.
+	 *
+	 * @throws IOException If the stream could not be read, or does not contain a valid class file.
+	 */
+	public static @NotNull ClassFileHeader read(@NotNull InputStream stream) throws IOException {
+		DataInputStream input = new DataInputStream(stream);
+		
+		if (input.readInt() != MAGIC) {
+			throw new IOException("The given stream does not contain a class file.");
+		}
+		
+		input.readUnsignedShort(); // minor version
+		input.readUnsignedShort(); // major version
+		
+		int poolCount = input.readUnsignedShort();
+		String[] utf8Entries = new String[poolCount];
+		int[] classEntries = new int[poolCount];
+		
+		for (int index = 1; index < poolCount; index++) {
+			int tag = input.readUnsignedByte();
+			
+			switch (tag) {
+				case CONSTANT_UTF8:
+					utf8Entries[index] = input.readUTF();
+					break;
+				case CONSTANT_CLASS:
+					classEntries[index] = input.readUnsignedShort();
+					break;
+				case CONSTANT_LONG:
+				case CONSTANT_DOUBLE:
+					input.skipBytes(8);
+					index++; // Eight-byte constants take up two entries in the pool.
+					break;
+				case CONSTANT_INTEGER:
+				case CONSTANT_FLOAT:
+				case CONSTANT_FIELD_REF:
+				case CONSTANT_METHOD_REF:
+				case CONSTANT_INTERFACE_METHOD_REF:
+				case CONSTANT_NAME_AND_TYPE:
+				case CONSTANT_DYNAMIC:
+				case CONSTANT_INVOKE_DYNAMIC:
+					input.skipBytes(4);
+					break;
+				case CONSTANT_METHOD_HANDLE:
+					input.skipBytes(3);
+					break;
+				case CONSTANT_STRING:
+				case CONSTANT_METHOD_TYPE:
+				case CONSTANT_MODULE:
+				case CONSTANT_PACKAGE:
+					input.skipBytes(2);
+					break;
+				default:
+					throw new IOException("Unknown constant pool tag " + tag + " at index " + index + '.');
+			}
+		}
+		
+		int accessFlags = input.readUnsignedShort();
+		String name = resolveClassName(input.readUnsignedShort(), utf8Entries, classEntries);
+		int superIndex = input.readUnsignedShort();
+		String superName = superIndex != 0 ? resolveClassName(superIndex, utf8Entries, classEntries) : null;
+		
+		int interfaceCount = input.readUnsignedShort();
+		List<String> interfaceNames = new ArrayList<>(interfaceCount);
+		
+		for (int i = 0; i < interfaceCount; i++) {
+			interfaceNames.add(resolveClassName(input.readUnsignedShort(), utf8Entries, classEntries));
+		}
+		
+		return new ClassFileHeader(accessFlags, name, superName, interfaceNames);
+	}
+	
+	private static String resolveClassName(int classIndex, String[] utf8Entries, int[] classEntries) throws IOException {
+		if (classIndex <= 0 || classIndex >= classEntries.length || utf8Entries[classEntries[classIndex]] == null) {
+			throw new IOException("Invalid class reference " + classIndex + " in constant pool.");
+		}
+		
+		return utf8Entries[classEntries[classIndex]].replace('/', '.');
+	}
+	
+	/**
+	 * @return the binary name of the class, for example {@code org.porcupine.modules.ModuleBase}.
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the binary name of the superclass, or null if the class is {@link Object}.
+	 */
+	public @Nullable String getSuperName() {
+		return superName;
+	}
+	
+	/**
+	 * @return the binary names of the interfaces directly implemented by the class.
+	 */
+	public List<String> getInterfaceNames() {
+		return interfaceNames;
+	}
+	
+	public boolean isInterface() {
+		return (accessFlags & ACC_INTERFACE) != 0;
+	}
+	
+	public boolean isAbstract() {
+		return (accessFlags & ACC_ABSTRACT) != 0;
+	}
+	
+	public boolean isAnnotation() {
+		return (accessFlags & ACC_ANNOTATION) != 0;
+	}
+	
+	@Override
+	@NonNls
+	public String toString() {
+		return "ClassFileHeader{" + "name='" + name + '\'' + ", superName='" + superName + '\'' + ", interfaceNames=" + interfaceNames + '}';
+	}
+}
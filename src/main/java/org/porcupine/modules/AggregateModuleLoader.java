@@ -4,32 +4,27 @@
 
 package org.porcupine.modules;
 
-import init.paths.ModInfo;
-import init.paths.PATHS;
+import org.porcupine.diagnostics.BootPhase;
+import org.porcupine.diagnostics.BootProfiler;
 import org.porcupine.io.FileManager;
-import org.porcupine.utilities.Version;
+import org.porcupine.utilities.Logger;
 
 import java.io.File;
-import java.net.*;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @SuppressWarnings("BooleanVariableAlwaysNegated")
 public final class AggregateModuleLoader {
-	private static final Collection<AggregateModuleInfo> moduleInfos;
-	private static final Collection<AggregateModule> modules;
+	private static final List<AggregateModule> modules;
+	private static final List<LazyModuleDescriptor> lazyModules;
 	private static final Map<AggregateModuleInfo, AggregateModuleConfig> moduleConfigs;
-	private static final Map<AggregateModuleInfo, Collection<String>> moduleClasses;
 	private static boolean modulesLoaded;
 	
 	static {
-		moduleInfos = new ArrayList<>();
 		modules = new ArrayList<>();
+		lazyModules = new ArrayList<>();
 		moduleConfigs = new HashMap<>();
-		moduleClasses = new HashMap<>();
 		modulesLoaded = false;
 	}
 	
@@ -40,51 +35,91 @@ public final class AggregateModuleLoader {
 		throw new AssertionError("This class cannot be instantiated.");
 	}
 	
+	/**
+	 * @return every module that is constructed eagerly, in mod order.
+	 */
 	public static Collection<AggregateModule> getModules() {
-		if (!modulesLoaded) {
-			createModuleInfos();
-			createModuleConfigs();
-			prepareModuleClasses();
-			createAggregateModules();
-			modulesLoaded = true;
+		loadModules();
+		return Collections.unmodifiableCollection(modules);
+	}
+	
+	/**
+	 * @return a descriptor for every module marked with {@link LazyActivation}, none of which have been constructed.
+	 */
+	public static Collection<LazyModuleDescriptor> getLazyModules() {
+		loadModules();
+		return Collections.unmodifiableCollection(lazyModules);
+	}
+	
+	/**
+	 * Constructs the modules of the given mod again, after its classes have been reloaded by the
+	 * {@link ModuleRegistry}. The previous modules of the mod are discarded, and the new ones take their place, so
+	 * {@link #getModules()} and {@link #getLazyModules()} stay in mod order.
+	 *
+	 * @param info The reloaded mod.
+	 *
+	 * @return the modules of the mod that are constructed eagerly. Its lazy modules are part of
+	 * {@link #getLazyModules()} again.
+	 */
+	public static List<AggregateModule> reload(AggregateModuleInfo info) {
+		loadModules();
+		
+		List<AggregateModule> modModules = createAggregateModules(info);
+		replace(modules, module -> module.modInfo, info, modModules);
+		replace(lazyModules, LazyModuleDescriptor::getModInfo, info, createLazyModules(info));
+		
+		return modModules;
+	}
+	
+	/**
+	 * Replaces the elements of the given mod with the given ones, at the position of the mod in mod order.
+	 *
+	 * @param elements    The elements of every mod, in mod order.
+	 * @param modOf       The mod an element belongs to.
+	 * @param info        The mod to replace the elements of.
+	 * @param replacement The new elements of the mod.
+	 */
+	private static <T> void replace(
+			List<T> elements,
+			Function<T, AggregateModuleInfo> modOf,
+			AggregateModuleInfo info,
+			List<T> replacement
+	) {
+		List<AggregateModuleInfo> infos = ModuleRegistry.getModuleInfos();
+		int modIndex = infos.indexOf(info);
+		
+		elements.removeIf(element -> modOf.apply(element) == info);
+		
+		int index = 0;
+		
+		while (index < elements.size() && infos.indexOf(modOf.apply(elements.get(index))) < modIndex) {
+			index++;
 		}
 		
-		return Collections.unmodifiableCollection(modules);
+		elements.addAll(index, replacement);
 	}
 	
-	private static void createModuleInfos() {
-		for (ModInfo info : PATHS.currentMods()) {
-			Path absolutePath = Paths.get(info.absolutePath, File.separator + "V63");
-			Path campaignsPath = absolutePath.resolve("campaigns");
-			Path examplesPath = absolutePath.resolve("examples");
-			Path savesPath = absolutePath.resolve("saves");
-			Path scriptsPath = absolutePath.resolve("script");
+	private static void loadModules() {
+		if (!modulesLoaded) {
+			long start = System.nanoTime();
 			
-			Version version = new Version(info.version);
+			createModuleConfigs();
+			createAggregateModules();
+			modulesLoaded = true;
 			
-			AggregateModulePaths paths = new AggregateModulePaths(
-					absolutePath,
-					campaignsPath,
-					examplesPath,
-					savesPath,
-					scriptsPath
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			Logger.info(
+					"Loaded %d module(s) and %d lazy module(s) from %d mod(s) in %d ms.",
+					modules.size(),
+					lazyModules.size(),
+					moduleConfigs.size(),
+					elapsed
 			);
-			
-			Collection<JarFile> jarFiles = FileManager.getJarFilesInDirectory(paths.scriptsPath.resolve("jar"));
-			
-			moduleInfos.add(new AggregateModuleInfo(
-					info.name,
-					info.desc,
-					info.author,
-					version,
-					paths,
-					jarFiles
-			));
 		}
 	}
 	
 	private static void createModuleConfigs() {
-		for (AggregateModuleInfo info : moduleInfos) {
+		for (AggregateModuleInfo info : ModuleRegistry.getModuleInfos()) {
 			File configFile = info.paths.absolutePath.resolve("config.properties").toFile();
 			Properties properties = FileManager.loadProperties(configFile);
 			AggregateModuleConfig config = new AggregateModuleConfig(properties);
@@ -92,67 +127,62 @@ public final class AggregateModuleLoader {
 		}
 	}
 	
-	@SuppressWarnings({"DynamicRegexReplaceableByCompiledPattern", "HardcodedFileSeparator"})
-	private static void prepareModuleClasses() {
-		for (AggregateModuleInfo info : moduleInfos) {
-			Collection<String> classNames = new ArrayList<>();
-			
-			for (JarFile jarFile : info.jarFiles) {
-				Enumeration<JarEntry> entries = jarFile.entries();
-				
-				while (entries.hasMoreElements()) {
-					JarEntry entry = entries.nextElement();
-					
-					if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
-						continue;
-					}
-					
-					String className = entry.getName().replace(".class", "").replace('/', '.');
-					
-					if (className.contains("package-info")) {
-						continue;
-					}
-					
-					classNames.add(className);
-				}
-			}
-			
-			moduleClasses.put(info, classNames);
+	/**
+	 * Instantiates every module class discovered by the {@link ModuleRegistry}. The classes of every mod are defined by
+	 * its own class loader, which the registry replaces when the mod is reloaded.
+	 *
+	 * @implNote When a parallel startup is enabled the modules of different mods are constructed concurrently, but
+	 * they are always added in mod order, so the order of the initialization callbacks does not change.
+	 */
+	private static void createAggregateModules() {
+		List<List<AggregateModule>> modulesPerMod = StartupExecutor.map(
+				ModuleRegistry.getModuleInfos(),
+				AggregateModuleLoader::createAggregateModules
+		);
+		
+		modulesPerMod.forEach(modules::addAll);
+		
+		for (AggregateModuleInfo info : ModuleRegistry.getModuleInfos()) {
+			lazyModules.addAll(createLazyModules(info));
 		}
 	}
 	
-	private static void createAggregateModules() {
-		for (AggregateModuleInfo info : moduleInfos) {
-			for (String className : moduleClasses.get(info)) {
-				try (URLClassLoader classLoader = createLoader()) {
-					Class<?> clazz = classLoader.loadClass(className);
-					
-					if (IScriptEntity.class.isAssignableFrom(clazz) && !clazz.isInterface()) {
-						AggregateModule module = new AggregateModule(clazz.getConstructor().newInstance(), info);
-						
-						module.modInfo = info;
-						module.modConfig = moduleConfigs.get(info);
-						
-						modules.add(module);
-					}
-				} catch (Exception e) {
-					throw new IllegalArgumentException(e);
-				}
+	private static List<LazyModuleDescriptor> createLazyModules(AggregateModuleInfo info) {
+		List<LazyModuleDescriptor> descriptors = new ArrayList<>();
+		
+		for (Class<? extends IScriptEntity> clazz : ModuleRegistry.getModuleClasses(info)) {
+			if (clazz.isAnnotationPresent(LazyActivation.class)) {
+				descriptors.add(new LazyModuleDescriptor(clazz, info, moduleConfigs.get(info)));
 			}
 		}
+		
+		return descriptors;
 	}
 	
-	private static URLClassLoader createLoader() {
-		URL[] urls = moduleInfos.stream()
-				.flatMap(moduleInfo -> moduleInfo.jarFiles.stream())
-				.map(jarFile -> {
-					try {
-						return new File(jarFile.getName()).toURI().toURL();
-					} catch (MalformedURLException e) {
-						throw new RuntimeException(e);
-					}
-				}).toArray(URL[]::new);
+	private static List<AggregateModule> createAggregateModules(AggregateModuleInfo info) {
+		List<AggregateModule> modModules = new ArrayList<>();
+		
+		for (Class<? extends IScriptEntity> clazz : ModuleRegistry.getModuleClasses(info)) {
+			if (clazz.isAnnotationPresent(LazyActivation.class)) {
+				continue;
+			}
+			
+			BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.INSTANTIATION, info.name, clazz.getName());
+			
+			try {
+				AggregateModule module = new AggregateModule(clazz.getConstructor().newInstance(), info);
+				
+				module.modInfo = info;
+				module.modConfig = moduleConfigs.get(info);
+				
+				modModules.add(module);
+			} catch (Exception e) {
+				throw new IllegalArgumentException(e);
+			} finally {
+				measurement.stop();
+			}
+		}
 		
-		return new URLClassLoader(urls, AggregateModuleLoader.class.getClassLoader());
+		return modModules;
 	}
 }
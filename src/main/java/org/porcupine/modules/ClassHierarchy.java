@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.io.ClassFileHeader;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the type hierarchy of scanned classes from their {@link ClassFileHeader}s, so that only the classes that
+ * actually implement one of the framework interfaces have to be loaded.
+ *
+ * @implNote Supertypes that are not part of the scanned set, such as classes of the game, of the framework itself or of
+ * jars restored from a {@link JarScanIndex}, are looked up through the class loader without being initialized. They are
+ * requested from the class loader directly rather than through {@link Class#forName(String, boolean, ClassLoader)},
+ * which would record the class loader as an initiating loader and keep classes of reloaded mods reachable. Every scanned
+ * class is added along with the jar it was read from, so classes whose type depends on other jars can be told apart.
+ */
+final class ClassHierarchy {
+	private static final String OBJECT_CLASS_NAME = Object.class.getName();
+	
+	private final Map<String, ClassFileHeader> headers;
+	private final Map<String, Object> origins;
+	private final Map<Class<?>, Map<String, Boolean>> resolvedSubtypes;
+	private final ClassLoader classLoader;
+	
+	/**
+	 * @param classLoader The class loader used to look up supertypes that are not part of the scanned set.
+	 */
+	ClassHierarchy(ClassLoader classLoader) {
+		this.headers = new HashMap<>();
+		this.origins = new HashMap<>();
+		this.resolvedSubtypes = new HashMap<>();
+		this.classLoader = classLoader;
+	}
+	
+	/**
+	 * @param header The header of a scanned class.
+	 * @param origin The jar the class was read from.
+	 */
+	void add(ClassFileHeader header, Object origin) {
+		headers.put(header.getName(), header);
+		origins.put(header.getName(), origin);
+	}
+	
+	/**
+	 * @param header The header of a scanned class.
+	 * @param target The type to test against.
+	 *
+	 * @return true if the class described by the header can be instantiated and is assignable to the target type.
+	 */
+	boolean isInstantiableSubtype(ClassFileHeader header, Class<?> target) {
+		if (header.isInterface() || header.isAbstract()) {
+			return false;
+		}
+		
+		return isSubtype(header.getName(), target);
+	}
+	
+	/**
+	 * @param superName      The name of the superclass of a class, or null if it has none.
+	 * @param interfaceNames The names of the interfaces the class implements directly.
+	 * @param target         The type to test against.
+	 *
+	 * @return true if a class with the given supertypes is assignable to the target type. The class itself is not
+	 * looked up, so it is never loaded.
+	 */
+	boolean hasSupertype(@Nullable String superName, Iterable<String> interfaceNames, Class<?> target) {
+		if (isSubtype(superName, target)) {
+			return true;
+		}
+		
+		for (String interfaceName : interfaceNames) {
+			if (isSubtype(interfaceName, target)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @param header The header of a scanned class.
+	 * @param origin The jar the class was read from.
+	 *
+	 * @return true if any supertype of the class was read from another jar, belongs to another mod or cannot be found,
+	 * so whether the class is a module or an event can change without its own jar changing.
+	 */
+	boolean dependsOnOtherJars(ClassFileHeader header, Object origin) {
+		return dependsOnOtherJars(header, origin, new HashSet<>());
+	}
+	
+	private boolean dependsOnOtherJars(ClassFileHeader header, Object origin, Set<String> visited) {
+		if (!visited.add(header.getName())) {
+			return false;
+		}
+		
+		if (dependsOnOtherJars(header.getSuperName(), origin, visited)) {
+			return true;
+		}
+		
+		for (String interfaceName : header.getInterfaceNames()) {
+			if (dependsOnOtherJars(interfaceName, origin, visited)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	private boolean dependsOnOtherJars(@Nullable String className, Object origin, Set<String> visited) {
+		if (className == null || OBJECT_CLASS_NAME.equals(className)) {
+			return false;
+		}
+		
+		ClassFileHeader header = headers.get(className);
+		
+		if (header != null) {
+			return origins.get(className) != origin || dependsOnOtherJars(header, origin, visited);
+		}
+		
+		try {
+			return classLoader.loadClass(className).getClassLoader() instanceof ModClassLoader;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return true;
+		}
+	}
+	
+	private boolean isSubtype(@Nullable String className, Class<?> target) {
+		if (className == null || OBJECT_CLASS_NAME.equals(className)) {
+			return false;
+		}
+		
+		if (className.equals(target.getName())) {
+			return true;
+		}
+		
+		Map<String, Boolean> resolved = resolvedSubtypes.computeIfAbsent(target, key -> new HashMap<>());
+		Boolean cached = resolved.get(className);
+		
+		if (cached != null) {
+			return cached;
+		}
+		
+		// Guards against malformed class files declaring a cyclic hierarchy.
+		resolved.put(className, false);
+		
+		boolean result;
+		ClassFileHeader header = headers.get(className);
+		
+		if (header == null) {
+			result = isExternalSubtype(className, target);
+		} else {
+			result = hasSupertype(header.getSuperName(), header.getInterfaceNames(), target);
+		}
+		
+		resolved.put(className, result);
+		return result;
+	}
+	
+	private boolean isExternalSubtype(String className, Class<?> target) {
+		try {
+			return target.isAssignableFrom(classLoader.loadClass(className));
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+}
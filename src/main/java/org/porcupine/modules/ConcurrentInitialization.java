@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a module whose {@link IScriptEntity#onInitializeEarly()} and {@link IScriptEntity#onInitializeLate()} may be
+ * invoked off the main thread, concurrently with the callbacks of modules it does not depend on.
+ *
+ * @author Milan Dierick
+ * @apiNote Only use this for modules that do not touch game state during initialization, for example modules that
+ * precompute lookup tables.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConcurrentInitialization {
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.events.IGlobalEvent;
+import org.porcupine.events.IRoomEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the modules and events a jar declares up front, so the jar does not have to be scanned at all. A jar declares
+ * its entry points through {@link java.util.ServiceLoader} provider files, or through attributes in its manifest:
+ *
+ * <ul>
+ *     <li>{@code META-INF/services/org.porcupine.modules.IScriptEntity} or {@code Porcupine-Modules}</li>
+ *     <li>{@code META-INF/services/org.porcupine.events.IGlobalEvent} or {@code Porcupine-Global-Events}</li>
+ *     <li>{@code META-INF/services/org.porcupine.events.IRoomEvent} or {@code Porcupine-Room-Events}</li>
+ * </ul>
+ * <p>
+ * Provider files list one binary class name per line, and may contain comments starting with {@code #}. Manifest
+ * attributes list class names separated by commas or whitespace.
+ *
+ * @apiNote As soon as a jar declares any entry point, only the declared classes are loaded from it.
+ */
+final class DeclaredEntryPoints {
+	@SuppressWarnings("HardcodedFileSeparator")
+	private static final String SERVICES_DIRECTORY = "META-INF/services/";
+	private static final Attributes.Name MODULES_ATTRIBUTE = new Attributes.Name("Porcupine-Modules");
+	private static final Attributes.Name GLOBAL_EVENTS_ATTRIBUTE = new Attributes.Name("Porcupine-Global-Events");
+	private static final Attributes.Name ROOM_EVENTS_ATTRIBUTE = new Attributes.Name("Porcupine-Room-Events");
+	private static final Pattern SEPARATOR_PATTERN = Pattern.compile("[,\\s]+");
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private DeclaredEntryPoints() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param jarFile The jar to read the declarations of.
+	 *
+	 * @return an entry holding the declared modules and events, or null if the jar does not declare any.
+	 *
+	 * @throws IOException If the provider files or the manifest could not be read.
+	 */
+	static @Nullable JarScanIndex.Entry read(JarFile jarFile) throws IOException {
+		JarScanIndex.Entry entry = JarScanIndex.Entry.declared();
+		Manifest manifest = jarFile.getManifest();
+		Attributes attributes = manifest != null ? manifest.getMainAttributes() : new Attributes();
+		
+		boolean declared = readProviders(jarFile, IScriptEntity.class, entry.getModules());
+		declared |= readProviders(jarFile, IGlobalEvent.class, entry.getGlobalEvents());
+		declared |= readProviders(jarFile, IRoomEvent.class, entry.getRoomEvents());
+		declared |= readAttribute(attributes, MODULES_ATTRIBUTE, entry.getModules());
+		declared |= readAttribute(attributes, GLOBAL_EVENTS_ATTRIBUTE, entry.getGlobalEvents());
+		declared |= readAttribute(attributes, ROOM_EVENTS_ATTRIBUTE, entry.getRoomEvents());
+		
+		return declared ? entry : null;
+	}
+	
+	private static boolean readProviders(JarFile jarFile, Class<?> service, Collection<String> classNames)
+			throws IOException {
+		JarEntry providers = jarFile.getJarEntry(SERVICES_DIRECTORY + service.getName());
+		
+		if (providers == null) {
+			return false;
+		}
+		
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				jarFile.getInputStream(providers),
+				StandardCharsets.UTF_8
+		))) {
+			String line;
+			
+			while ((line = reader.readLine()) != null) {
+				int commentStart = line.indexOf('#');
+				String className = (commentStart >= 0 ? line.substring(0, commentStart) : line).trim();
+				
+				if (!className.isEmpty() && !classNames.contains(className)) {
+					classNames.add(className);
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	private static boolean readAttribute(Attributes attributes, Attributes.Name name, Collection<String> classNames) {
+		String value = attributes.getValue(name);
+		
+		if (value == null) {
+			return false;
+		}
+		
+		for (String className : SEPARATOR_PATTERN.split(value.trim())) {
+			if (!className.isEmpty() && !classNames.contains(className)) {
+				classNames.add(className);
+			}
+		}
+		
+		return true;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.porcupine.utilities.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the {@code script/jar} directory of every mod, and reports the mods whose jars changed, so that they can be
+ * reloaded through {@link ModuleRegistry#reload(AggregateModuleInfo)}. It also verifies that the class loaders of
+ * reloaded mods are garbage collected.
+ *
+ * @author Milan Dierick
+ * @implNote The directories are watched on a daemon thread, which only records when a mod changed. The mods are
+ * reported on the thread calling {@link #pollChangedMods()}, once their jars have not changed for a short while, so a
+ * jar is not picked up while it is still being written.
+ */
+public final class HotReloadWatcher implements Closeable {
+	private static final long QUIET_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+	private static final long COLLECTION_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+	
+	private final WatchService watchService;
+	private final Map<WatchKey, AggregateModuleInfo> watchedMods;
+	private final Map<AggregateModuleInfo, Long> changedMods;
+	private final Collection<UnloadedClassLoader> unloadedClassLoaders;
+	
+	/**
+	 * Starts watching the jars of the given mods.
+	 *
+	 * @param infos The mods to watch.
+	 *
+	 * @throws IOException If the directories could not be watched.
+	 */
+	public HotReloadWatcher(Iterable<AggregateModuleInfo> infos) throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.watchedMods = new HashMap<>();
+		this.changedMods = new ConcurrentHashMap<>();
+		this.unloadedClassLoaders = new ArrayList<>();
+		
+		for (AggregateModuleInfo info : infos) {
+			Path directory = info.paths.scriptsPath.resolve("jar");
+			
+			if (Files.isDirectory(directory)) {
+				WatchKey key = directory.register(
+						watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE
+				);
+				
+				watchedMods.put(key, info);
+			}
+		}
+		
+		Thread thread = new Thread(this::watch, "Porcupine hot reload");
+		thread.setDaemon(true);
+		thread.start();
+		
+		Logger.info("Watching the jars of %d mod(s) for changes.", watchedMods.size());
+	}
+	
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				AggregateModuleInfo info = watchedMods.get(key);
+				
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (info != null && event.context() instanceof Path && event.context().toString().endsWith(".jar")) {
+						changedMods.put(info, System.nanoTime());
+					}
+				}
+				
+				key.reset();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException ignored) {
+			// The watcher has been closed.
+		}
+	}
+	
+	/**
+	 * @return every mod whose jars changed since the last call, and have not changed for a short while since.
+	 */
+	public List<AggregateModuleInfo> pollChangedMods() {
+		List<AggregateModuleInfo> mods = new ArrayList<>();
+		long now = System.nanoTime();
+		
+		for (Map.Entry<AggregateModuleInfo, Long> entry : changedMods.entrySet()) {
+			if (now - entry.getValue() >= QUIET_PERIOD_NANOS && changedMods.remove(entry.getKey(), entry.getValue())) {
+				mods.add(entry.getKey());
+			}
+		}
+		
+		return mods;
+	}
+	
+	/**
+	 * Remembers the previous class loader of a reloaded mod, so {@link #checkUnloadedClassLoaders()} can verify it is
+	 * garbage collected.
+	 *
+	 * @param info   The reloaded mod.
+	 * @param loader The previous class loader of the mod.
+	 */
+	public void trackUnloaded(AggregateModuleInfo info, ClassLoader loader) {
+		unloadedClassLoaders.add(new UnloadedClassLoader(info.name, loader, System.nanoTime()));
+	}
+	
+	/**
+	 * Warns about every previous class loader that is still reachable a while after its mod was reloaded. A garbage
+	 * collection is requested once before a class loader is reported.
+	 */
+	public void checkUnloadedClassLoaders() {
+		long now = System.nanoTime();
+		Iterator<UnloadedClassLoader> iterator = unloadedClassLoaders.iterator();
+		
+		while (iterator.hasNext()) {
+			UnloadedClassLoader unloaded = iterator.next();
+			
+			if (unloaded.reference.get() == null) {
+				Logger.debug("The previous class loader of mod %s has been garbage collected.", unloaded.modName);
+				iterator.remove();
+			} else if (now - unloaded.unloadTime >= COLLECTION_DELAY_NANOS) {
+				if (!unloaded.collectionRequested) {
+					unloaded.collectionRequested = true;
+					System.gc();
+				} else {
+					Logger.warn(
+							"The previous class loader of mod %s is still reachable after reloading it, an instance of one of its classes is leaking.",
+							unloaded.modName
+					);
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Stops watching the jars of the mods.
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+	
+	private static final class UnloadedClassLoader {
+		private final String modName;
+		private final WeakReference<ClassLoader> reference;
+		private final long unloadTime;
+		private boolean collectionRequested;
+		
+		private UnloadedClassLoader(String modName, ClassLoader loader, long unloadTime) {
+			this.modName = modName;
+			this.reference = new WeakReference<>(loader);
+			this.unloadTime = unloadTime;
+			this.collectionRequested = false;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+/**
+ * A custom condition for a module marked with {@link LazyActivation}.
+ */
+@FunctionalInterface
+public interface IActivationCondition {
+	/**
+	 * Invoked periodically while the module has not been activated yet.
+	 *
+	 * @param info   The information of the mod the module belongs to.
+	 * @param config The configuration of the mod the module belongs to.
+	 *
+	 * @return true if the module should be activated.
+	 */
+	boolean isSatisfied(AggregateModuleInfo info, AggregateModuleConfig config);
+}
@@ -6,9 +6,10 @@ package org.porcupine.modules;
 
 public interface ITickCapable {
     /**
-     * Invoked every tick.
+     * Invoked every tick, on every game update unless the module declares a
+     * {@link org.porcupine.scheduling.TickCadence}.
      *
-     * @param delta Time in milliseconds since last tick.
+     * @param delta Time in seconds since last tick, including every update the module was not ticked in.
      */
     default void onTick(double delta) {
     
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.io.ClassFileHeader;
+import org.porcupine.utilities.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An on-disk index of the classes the {@link ModuleRegistry} found in the jars of a single mod. Every jar has its own
+ * entry, keyed by its path and fingerprinted by its content hash, so that unchanged jars do not have to be enumerated
+ * and filtered again on the next launch.
+ * <p>
+ * Whether a class is a module or an event depends on its supertypes, which may be declared in another jar. Classes
+ * whose supertypes are all found in their own jar, the game or the framework are recorded as modules or events right
+ * away. Any other class is recorded along with the names of its supertypes, see {@link DependentClass}, and is
+ * classified again on every launch, so a changed jar never invalidates the entries of other jars.
+ *
+ * @implNote A jar is only hashed if its size or modification time differ from the ones in its entry. A stale entry only
+ * invalidates its own jar. An index that cannot be read is discarded as a whole, after which every jar of the mod is
+ * rescanned and the index is rewritten.
+ */
+final class JarScanIndex {
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final Type ENTRIES_TYPE = new TypeToken<LinkedHashMap<String, Entry>>() {}.getType();
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private final Path indexPath;
+	private final Map<String, Entry> entries;
+	private final Map<String, Entry> usedEntries;
+	private boolean modified;
+	
+	private JarScanIndex(Path indexPath, Map<String, Entry> entries) {
+		this.indexPath = indexPath;
+		this.entries = entries;
+		this.usedEntries = new LinkedHashMap<>();
+		this.modified = false;
+	}
+	
+	/**
+	 * @param indexPath The file the index is stored in.
+	 *
+	 * @return the index stored in the given file, or an empty index if the file does not exist or cannot be read.
+	 */
+	static JarScanIndex load(Path indexPath) {
+		if (!Files.isRegularFile(indexPath)) {
+			return new JarScanIndex(indexPath, new LinkedHashMap<>());
+		}
+		
+		try (Reader reader = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+			Map<String, Entry> entries = GSON.fromJson(reader, ENTRIES_TYPE);
+			return new JarScanIndex(indexPath, entries != null ? entries : new LinkedHashMap<>());
+		} catch (IOException | JsonParseException e) {
+			Logger.warn("Discarding unreadable module scan index: %s", indexPath);
+			return new JarScanIndex(indexPath, new LinkedHashMap<>());
+		}
+	}
+	
+	/**
+	 * @param jarPath The jar to look up.
+	 *
+	 * @return the entry of the jar if its content hash still matches the one in the index, or a new, empty entry that
+	 * has to be filled by scanning the jar. The jar is only hashed if its size or modification time changed.
+	 *
+	 * @throws IOException If the jar could not be fingerprinted.
+	 */
+	Entry lookup(Path jarPath) throws IOException {
+		String key = jarPath.toAbsolutePath().toString();
+		long size = Files.size(jarPath);
+		long lastModified = Files.getLastModifiedTime(jarPath).toMillis();
+		Entry entry = entries.get(key);
+		
+		if (entry != null && entry.size == size && entry.lastModified == lastModified && entry.matches(entry.hash)) {
+			usedEntries.put(key, entry);
+			return entry;
+		}
+		
+		String hash = hash(jarPath);
+		
+		if (entry != null && entry.matches(hash)) {
+			entry.size = size;
+			entry.lastModified = lastModified;
+		} else {
+			entry = new Entry(size, lastModified, hash);
+		}
+		
+		modified = true;
+		usedEntries.put(key, entry);
+		return entry;
+	}
+	
+	/**
+	 * Writes the index back to disk if any jar was rescanned, or a jar was removed from the mod. Only the entries of
+	 * jars that were looked up during this launch are kept.
+	 */
+	void store() {
+		if (!modified && usedEntries.size() == entries.size()) {
+			return;
+		}
+		
+		try (Writer writer = Files.newBufferedWriter(indexPath, StandardCharsets.UTF_8)) {
+			GSON.toJson(usedEntries, ENTRIES_TYPE, writer);
+		} catch (IOException e) {
+			Logger.warn("IO exception while trying to store module scan index: %s", indexPath);
+		}
+	}
+	
+	private static String hash(Path file) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		
+		try (InputStream stream = Files.newInputStream(file)) {
+			int read;
+			
+			while ((read = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		
+		return toHex(digest.digest());
+	}
+	
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder();
+		
+		for (byte value : bytes) {
+			builder.append(String.format("%02x", value));
+		}
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * The fingerprint of a single jar, along with the names of the modules and events found in it and the classes
+	 * whose type depends on other jars.
+	 */
+	static final class Entry {
+		private long size;
+		private long lastModified;
+		private final String hash;
+		private final List<String> modules;
+		private final List<String> globalEvents;
+		private final List<String> roomEvents;
+		private final List<DependentClass> dependentClasses;
+		private boolean scanned;
+		
+		private Entry(long size, long lastModified, String hash) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.modules = new ArrayList<>();
+			this.globalEvents = new ArrayList<>();
+			this.roomEvents = new ArrayList<>();
+			this.dependentClasses = new ArrayList<>();
+			this.scanned = false;
+		}
+		
+		/**
+		 * @return a new entry for a jar that declares its modules and events, which is never stored in the index.
+		 */
+		static Entry declared() {
+			Entry entry = new Entry(0, 0, "");
+			entry.scanned = true;
+			return entry;
+		}
+		
+		private boolean matches(@Nullable String hash) {
+			return scanned && hash != null && hash.equals(this.hash)
+					&& modules != null && globalEvents != null && roomEvents != null && dependentClasses != null;
+		}
+		
+		/**
+		 * @return true if the entry was restored from the index, false if the jar still has to be scanned.
+		 */
+		boolean isScanned() {
+			return scanned;
+		}
+		
+		/**
+		 * Marks the jar as scanned, after all of its modules and events have been added to the entry.
+		 */
+		void markScanned() {
+			scanned = true;
+		}
+		
+		List<String> getModules() {
+			return modules;
+		}
+		
+		List<String> getGlobalEvents() {
+			return globalEvents;
+		}
+		
+		List<String> getRoomEvents() {
+			return roomEvents;
+		}
+		
+		List<DependentClass> getDependentClasses() {
+			return dependentClasses;
+		}
+	}
+	
+	/**
+	 * A concrete class whose supertypes are declared in another jar or another mod, so whether it is a module or an
+	 * event can change without its own jar changing.
+	 */
+	static final class DependentClass {
+		private final String name;
+		private final @Nullable String superName;
+		private final List<String> interfaceNames;
+		
+		DependentClass(ClassFileHeader header) {
+			this.name = header.getName();
+			this.superName = header.getSuperName();
+			this.interfaceNames = new ArrayList<>(header.getInterfaceNames());
+		}
+		
+		String getName() {
+			return name;
+		}
+		
+		@Nullable String getSuperName() {
+			return superName;
+		}
+		
+		List<String> getInterfaceNames() {
+			return interfaceNames != null ? interfaceNames : Collections.emptyList();
+		}
+	}
+}
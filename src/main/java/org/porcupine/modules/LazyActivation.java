@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a module that should only be constructed once its activation conditions are met. Until then the module is
+ * represented by a {@link LazyModuleDescriptor}, which is never instantiated and never receives any callbacks. Once
+ * every declared condition holds, the module is constructed, initialized and added to the game like any other module.
+ * <p>
+ * Conditions that are left at their default value are ignored. A module without any declared condition activates on
+ * the first check after the game has been created.
+ *
+ * @author Milan Dierick
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface LazyActivation {
+	/**
+	 * @return a key in the {@link AggregateModuleConfig} of the mod, the module activates once its value is {@code true}.
+	 */
+	String configKey() default "";
+	
+	/**
+	 * @return the population the city needs to reach before the module activates, as reported by
+	 * {@link org.porcupine.statistics.PopulationStats}.
+	 */
+	int minimumPopulation() default 0;
+	
+	/**
+	 * @return a custom condition, for example one checking the current campaign or any other statistic. The class
+	 * needs a public constructor without parameters.
+	 */
+	Class<? extends IActivationCondition> condition() default IActivationCondition.class;
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.statistics.PopulationStats;
+import org.porcupine.statistics.Statistics;
+
+/**
+ * Describes a module marked with {@link LazyActivation} that has not been constructed yet.
+ *
+ * @author Milan Dierick
+ */
+public final class LazyModuleDescriptor {
+	private final Class<? extends IScriptEntity> moduleClass;
+	private final AggregateModuleInfo modInfo;
+	private final AggregateModuleConfig modConfig;
+	private final LazyActivation activation;
+	private final @Nullable IActivationCondition condition;
+	
+	LazyModuleDescriptor(
+			Class<? extends IScriptEntity> moduleClass,
+			AggregateModuleInfo modInfo,
+			AggregateModuleConfig modConfig
+	) {
+		this.moduleClass = moduleClass;
+		this.modInfo = modInfo;
+		this.modConfig = modConfig;
+		this.activation = moduleClass.getAnnotation(LazyActivation.class);
+		
+		if (activation.condition() != IActivationCondition.class) {
+			try {
+				this.condition = activation.condition().getConstructor().newInstance();
+			} catch (Exception e) {
+				throw new IllegalArgumentException(e);
+			}
+		} else {
+			this.condition = null;
+		}
+	}
+	
+	/**
+	 * @return true if every condition declared through {@link LazyActivation} holds.
+	 */
+	public boolean isActivationDue() {
+		if (!activation.configKey().isEmpty() && !Boolean.parseBoolean(modConfig.getProperty(activation.configKey()))) {
+			return false;
+		}
+		
+		if (activation.minimumPopulation() > 0) {
+			PopulationStats stats = Statistics.getPopulationStats();
+			
+			if (stats.getCurrentPopulationCount() < activation.minimumPopulation()) {
+				return false;
+			}
+		}
+		
+		return condition == null || condition.isSatisfied(modInfo, modConfig);
+	}
+	
+	/**
+	 * Constructs the module. Initializing the module and adding it to the game is left to the caller.
+	 *
+	 * @return the constructed module.
+	 */
+	public AggregateModule instantiate() {
+		try {
+			AggregateModule module = new AggregateModule(moduleClass.getConstructor().newInstance(), modInfo);
+			
+			module.modInfo = modInfo;
+			module.modConfig = modConfig;
+			
+			return module;
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+	/**
+	 * @return the class of the module.
+	 */
+	public Class<? extends IScriptEntity> getModuleClass() {
+		return moduleClass;
+	}
+	
+	/**
+	 * @return the information of the mod the module belongs to.
+	 */
+	public AggregateModuleInfo getModInfo() {
+		return modInfo;
+	}
+	
+	@Override
+	@NonNls
+	public String toString() {
+		return "LazyModuleDescriptor{" + "moduleClass=" + moduleClass.getName() + ", mod='" + modInfo.name + '\'' + '}';
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.utilities.Logger;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+
+/**
+ * The class loader of a single mod. Classes are looked up in the framework and the game first, then in the jars of the
+ * mod itself, and finally in the jars of every other mod of the same {@link ModClassLoaderGroup}, so that mods can
+ * still reference each other.
+ *
+ * @implNote With a shadow copy, the jars are copied to a temporary directory before they are opened, so the original
+ * jars are never locked and can be replaced while the game is running. The copies are deleted when the loader is
+ * closed.
+ */
+final class ModClassLoader extends URLClassLoader {
+	static {
+		registerAsParallelCapable();
+	}
+	
+	private final String modName;
+	private final ModClassLoaderGroup group;
+	private final @Nullable Path shadowDirectory;
+	
+	private ModClassLoader(String modName, URL[] urls, ModClassLoaderGroup group, @Nullable Path shadowDirectory) {
+		super(urls, group.getParent());
+		this.modName = modName;
+		this.group = group;
+		this.shadowDirectory = shadowDirectory;
+	}
+	
+	/**
+	 * Creates the class loader of a mod and adds it to the given group.
+	 *
+	 * @param info       The mod to create the class loader for.
+	 * @param group      The group of the class loaders of every mod.
+	 * @param shadowCopy Whether the jars of the mod should be copied before they are opened.
+	 *
+	 * @return the class loader of the mod.
+	 *
+	 * @throws IOException If the jars of the mod could not be copied.
+	 */
+	static ModClassLoader create(AggregateModuleInfo info, ModClassLoaderGroup group, boolean shadowCopy)
+			throws IOException {
+		Path shadowDirectory = shadowCopy ? Files.createTempDirectory("porcupine-") : null;
+		List<URL> urls = new ArrayList<>();
+		
+		for (JarFile jarFile : info.jarFiles) {
+			Path jarPath = Paths.get(jarFile.getName());
+			
+			if (shadowDirectory != null) {
+				Path copy = shadowDirectory.resolve(urls.size() + "-" + jarPath.getFileName());
+				jarPath = Files.copy(jarPath, copy, StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+			urls.add(toURL(jarPath));
+		}
+		
+		ModClassLoader loader = new ModClassLoader(info.name, urls.toArray(new URL[0]), group, shadowDirectory);
+		group.add(loader);
+		return loader;
+	}
+	
+	private static URL toURL(Path path) {
+		try {
+			return path.toUri().toURL();
+		} catch (MalformedURLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		try {
+			return super.loadClass(name, resolve);
+		} catch (ClassNotFoundException e) {
+			Class<?> clazz = group.findSiblingClass(name, this);
+			
+			if (clazz == null) {
+				throw e;
+			}
+			
+			return clazz;
+		}
+	}
+	
+	/**
+	 * @param name The binary name of the class.
+	 *
+	 * @return the class if it is defined by one of the jars of this mod, or null otherwise. Neither the parent nor any
+	 * other mod is consulted.
+	 */
+	@Nullable Class<?> findOwnClass(String name) {
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> clazz = findLoadedClass(name);
+			
+			if (clazz != null) {
+				return clazz;
+			}
+			
+			try {
+				return findClass(name);
+			} catch (ClassNotFoundException e) {
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * Removes the loader from its group, closes its jars and deletes the shadow copies, if any.
+	 */
+	@Override
+	public void close() throws IOException {
+		group.remove(this);
+		super.close();
+		
+		if (shadowDirectory != null) {
+			deleteShadowDirectory(shadowDirectory);
+		}
+	}
+	
+	private static void deleteShadowDirectory(Path directory) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				Files.deleteIfExists(file);
+			}
+			
+			Files.deleteIfExists(directory);
+		} catch (IOException e) {
+			Logger.warn("Could not delete the shadow copies in %s", directory);
+		}
+	}
+	
+	String getModName() {
+		return modName;
+	}
+	
+	@Override
+	public String toString() {
+		return "ModClassLoader{" + "modName='" + modName + '\'' + '}';
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The class loaders of every loaded mod. As a class loader itself, the group sees the classes of the framework, the
+ * game and every mod, without defining any class on its own.
+ */
+final class ModClassLoaderGroup extends ClassLoader {
+	static {
+		registerAsParallelCapable();
+	}
+	
+	private final Collection<ModClassLoader> loaders;
+	
+	/**
+	 * @param parent The class loader of the framework, which is the parent of every mod class loader.
+	 */
+	ModClassLoaderGroup(ClassLoader parent) {
+		super(parent);
+		this.loaders = new CopyOnWriteArrayList<>();
+	}
+	
+	void add(ModClassLoader loader) {
+		loaders.add(loader);
+	}
+	
+	void remove(ModClassLoader loader) {
+		loaders.remove(loader);
+	}
+	
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		Class<?> clazz = findSiblingClass(name, null);
+		
+		if (clazz == null) {
+			throw new ClassNotFoundException(name);
+		}
+		
+		return clazz;
+	}
+	
+	/**
+	 * @param name      The binary name of the class.
+	 * @param requester The class loader that could not find the class itself, or null.
+	 *
+	 * @return the class if it is defined by the jars of any mod other than the requester, or null otherwise.
+	 */
+	@Nullable Class<?> findSiblingClass(String name, @Nullable ModClassLoader requester) {
+		for (ModClassLoader loader : loaders) {
+			if (loader == requester) {
+				continue;
+			}
+			
+			Class<?> clazz = loader.findOwnClass(name);
+			
+			if (clazz != null) {
+				return clazz;
+			}
+		}
+		
+		return null;
+	}
+}
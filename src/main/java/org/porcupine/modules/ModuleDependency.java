@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that a module has to be initialized after the modules of another mod. The initialization callbacks of a
+ * module are only invoked once the callbacks of all of its dependencies have completed.
+ *
+ * @author Milan Dierick
+ * @see ModuleInitializer
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(ModuleDependencies.class)
+public @interface ModuleDependency {
+	/**
+	 * @return the name of the mod the module depends on, as reported by {@link AggregateModule#getName()}.
+	 */
+	String name();
+	
+	/**
+	 * @return the range of versions of the mod the module is compatible with, in the notation of
+	 * {@link org.porcupine.utilities.VersionRange}. Any version is accepted by default.
+	 */
+	String version() default "";
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.porcupine.diagnostics.BootPhase;
+import org.porcupine.diagnostics.BootProfiler;
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.VersionRange;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Invokes the initialization callbacks of modules in the order declared through {@link ModuleDependency}. The modules
+ * are sorted into layers, where every module only depends on modules of earlier layers. Within a layer, modules marked
+ * with {@link ConcurrentInitialization} are initialized on a worker pool, while every other module is initialized on
+ * the calling thread, in discovery order. A layer only starts once every callback of the previous layer has completed.
+ * <p>
+ * {@link IScriptEntity#onInitializeEarly()} is invoked on every module before {@link IScriptEntity#onInitializeLate()}
+ * is invoked on any module, exactly like before dependencies could be declared.
+ * <p>
+ * Modules added while the game is running, such as lazily activated or hot reloaded modules, are initialized through
+ * {@link #initialize(List, Collection, Collection)}, so their dependencies are checked the same way.
+ *
+ * @author Milan Dierick
+ */
+public final class ModuleInitializer {
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private ModuleInitializer() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param modules     The modules to initialize, in discovery order.
+	 * @param lazyModules The modules that are not active yet. Dependencies on them are accepted, but not waited on.
+	 *
+	 * @throws InvalidAggregateException If a dependency is missing, has an incompatible version, or the dependencies
+	 *                                   form a cycle.
+	 */
+	public static void initialize(List<AggregateModule> modules, Collection<LazyModuleDescriptor> lazyModules) {
+		initialize(modules, Collections.emptyList(), lazyModules);
+	}
+	
+	/**
+	 * @param modules       The modules to initialize, in discovery order.
+	 * @param activeModules The modules that have already been initialized. Dependencies on them are accepted, and have
+	 *                      completed already.
+	 * @param lazyModules   The modules that are not active yet. Dependencies on them are accepted, but not waited on.
+	 *
+	 * @throws InvalidAggregateException If a dependency is missing, has an incompatible version, or the dependencies
+	 *                                   form a cycle. No callback has been invoked in that case.
+	 */
+	public static void initialize(
+			List<AggregateModule> modules,
+			Collection<AggregateModule> activeModules,
+			Collection<LazyModuleDescriptor> lazyModules
+	) {
+		List<List<AggregateModule>> layers = createLayers(modules, activeModules, lazyModules);
+		
+		runPhase(layers, BootPhase.INITIALIZE_EARLY, IScriptEntity::onInitializeEarly);
+		runPhase(layers, BootPhase.INITIALIZE_LATE, IScriptEntity::onInitializeLate);
+	}
+	
+	/**
+	 * Sorts the modules into layers using Kahn's algorithm, keeping the discovery order within every layer.
+	 */
+	private static List<List<AggregateModule>> createLayers(
+			List<AggregateModule> modules,
+			Collection<AggregateModule> activeModules,
+			Collection<LazyModuleDescriptor> lazyModules
+	) {
+		Map<AggregateModule, List<AggregateModule>> dependents = new IdentityHashMap<>();
+		Map<AggregateModule, Integer> remainingDependencies = new IdentityHashMap<>();
+		
+		for (AggregateModule module : modules) {
+			dependents.put(module, new ArrayList<>());
+			remainingDependencies.put(module, 0);
+		}
+		
+		for (AggregateModule module : modules) {
+			for (AggregateModule dependency : resolveDependencies(module, modules, activeModules, lazyModules)) {
+				dependents.get(dependency).add(module);
+				remainingDependencies.merge(module, 1, Integer::sum);
+			}
+		}
+		
+		List<List<AggregateModule>> layers = new ArrayList<>();
+		List<AggregateModule> layer = modules.stream()
+				.filter(module -> remainingDependencies.get(module) == 0)
+				.collect(Collectors.toList());
+		int layeredCount = 0;
+		
+		while (!layer.isEmpty()) {
+			layers.add(layer);
+			layeredCount += layer.size();
+			
+			Set<AggregateModule> nextLayer = Collections.newSetFromMap(new IdentityHashMap<>());
+			
+			for (AggregateModule module : layer) {
+				for (AggregateModule dependent : dependents.get(module)) {
+					if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+						nextLayer.add(dependent);
+					}
+				}
+			}
+			
+			layer = modules.stream().filter(nextLayer::contains).collect(Collectors.toList());
+		}
+		
+		if (layeredCount != modules.size()) {
+			String cycle = modules.stream()
+					.filter(module -> remainingDependencies.get(module) > 0)
+					.map(module -> module.scriptEntity.getClass().getName())
+					.collect(Collectors.joining(", "));
+			
+			throw new InvalidAggregateException("The dependencies of the following modules form a cycle: " + cycle);
+		}
+		
+		return layers;
+	}
+	
+	private static Collection<AggregateModule> resolveDependencies(
+			AggregateModule module,
+			Collection<AggregateModule> modules,
+			Collection<AggregateModule> activeModules,
+			Collection<LazyModuleDescriptor> lazyModules
+	) {
+		Collection<AggregateModule> dependencies = new ArrayList<>();
+		
+		for (ModuleDependency dependency : module.scriptEntity.getClass().getAnnotationsByType(ModuleDependency.class)) {
+			VersionRange range = VersionRange.parse(dependency.version());
+			boolean found = false;
+			
+			for (AggregateModule candidate : modules) {
+				if (!candidate.getName().equals(dependency.name())) {
+					continue;
+				}
+				
+				checkVersion(module, dependency, range, candidate.modInfo);
+				found = true;
+				
+				// Modules of the same mod are initialized in discovery order instead.
+				if (candidate.modInfo != module.modInfo) {
+					dependencies.add(candidate);
+				}
+			}
+			
+			for (AggregateModule candidate : activeModules) {
+				if (candidate.getName().equals(dependency.name())) {
+					checkVersion(module, dependency, range, candidate.modInfo);
+					found = true;
+				}
+			}
+			
+			for (LazyModuleDescriptor candidate : lazyModules) {
+				if (candidate.getModInfo().name.equals(dependency.name())) {
+					checkVersion(module, dependency, range, candidate.getModInfo());
+					found = true;
+				}
+			}
+			
+			if (!found) {
+				throw new InvalidAggregateException(String.format(
+						"Module %s depends on mod %s, which is not loaded.",
+						module.scriptEntity.getClass().getName(),
+						dependency.name()
+				));
+			}
+		}
+		
+		return dependencies;
+	}
+	
+	private static void checkVersion(
+			AggregateModule module,
+			ModuleDependency dependency,
+			VersionRange range,
+			AggregateModuleInfo candidate
+	) {
+		if (!range.contains(candidate.version)) {
+			throw new InvalidAggregateException(String.format(
+					"Module %s requires mod %s in version %s, but version %s is loaded.",
+					module.scriptEntity.getClass().getName(),
+					dependency.name(),
+					range,
+					candidate.version
+			));
+		}
+	}
+	
+	private static void runPhase(List<List<AggregateModule>> layers, BootPhase phase, Consumer<IScriptEntity> callback) {
+		ExecutorService executor = null;
+		
+		try {
+			for (List<AggregateModule> layer : layers) {
+				List<Future<?>> futures = new ArrayList<>();
+				
+				for (AggregateModule module : layer) {
+					if (!module.scriptEntity.getClass().isAnnotationPresent(ConcurrentInitialization.class)) {
+						continue;
+					}
+					
+					if (executor == null) {
+						executor = Executors.newFixedThreadPool(FrameworkSettings.getStartupParallelism());
+					}
+					
+					futures.add(executor.submit(() -> invoke(module, phase, callback)));
+				}
+				
+				for (AggregateModule module : layer) {
+					if (!module.scriptEntity.getClass().isAnnotationPresent(ConcurrentInitialization.class)) {
+						invoke(module, phase, callback);
+					}
+				}
+				
+				awaitAll(futures);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+	}
+	
+	private static void invoke(AggregateModule module, BootPhase phase, Consumer<IScriptEntity> callback) {
+		String moduleName = module.scriptEntity.getClass().getName();
+		
+		BootProfiler.Measurement measurement = BootProfiler.measure(phase, module.modInfo.name, moduleName);
+		
+		try {
+			callback.accept(module.scriptEntity);
+		} finally {
+			measurement.stop();
+		}
+	}
+	
+	private static void awaitAll(Iterable<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import init.paths.ModInfo;
+import init.paths.PATHS;
+import org.porcupine.diagnostics.BootPhase;
+import org.porcupine.diagnostics.BootProfiler;
+import org.porcupine.events.IGlobalEvent;
+import org.porcupine.events.IRoomEvent;
+import org.porcupine.io.ClassFileHeader;
+import org.porcupine.io.FileManager;
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.Logger;
+import org.porcupine.utilities.Version;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Scans the jars of all currently loaded mods exactly once, and sorts every discovered class into modules, global
+ * events and room events. Both {@link AggregateModuleLoader} and {@link org.porcupine.events.EventLoader} are backed by
+ * this registry, so every jar is opened, enumerated and loaded only once during startup.
+ *
+ * @implNote The registry owns the lifecycle of the {@link JarFile} handles of every {@link AggregateModuleInfo}; they are
+ * closed as soon as their entries have been enumerated. Candidate classes are found by reading the headers of the class
+ * files, so only actual modules and events are loaded. Every mod has its own {@link ModClassLoader}, which can be
+ * replaced through {@link #reload(AggregateModuleInfo)} while the game is running. The results are kept in a
+ * {@link JarScanIndex} per mod, so unchanged jars are not scanned again on the next launch. Mods are scanned
+ * concurrently when a parallel startup is enabled.
+ */
+@SuppressWarnings("BooleanVariableAlwaysNegated")
+public final class ModuleRegistry {
+	private static final String INDEX_FILE_NAME = "porcupine-index.json";
+	
+	private static final List<AggregateModuleInfo> moduleInfos;
+	private static final Map<AggregateModuleInfo, List<Class<? extends IScriptEntity>>> moduleClasses;
+	private static final Map<AggregateModuleInfo, List<Class<? extends IGlobalEvent>>> globalEventClasses;
+	private static final Map<AggregateModuleInfo, List<Class<? extends IRoomEvent>>> roomEventClasses;
+	private static final Map<AggregateModuleInfo, ModClassLoader> modClassLoaders;
+	private static ModClassLoaderGroup classLoaders;
+	private static boolean registryLoaded;
+	
+	static {
+		moduleInfos = new ArrayList<>();
+		moduleClasses = new ConcurrentHashMap<>();
+		globalEventClasses = new ConcurrentHashMap<>();
+		roomEventClasses = new ConcurrentHashMap<>();
+		modClassLoaders = new ConcurrentHashMap<>();
+		registryLoaded = false;
+	}
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private ModuleRegistry() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @return the information of every currently loaded mod, in the order the game reports them.
+	 */
+	public static List<AggregateModuleInfo> getModuleInfos() {
+		loadRegistry();
+		return Collections.unmodifiableList(moduleInfos);
+	}
+	
+	/**
+	 * @param info The mod to get the module classes for.
+	 *
+	 * @return the instantiable classes implementing {@link IScriptEntity} found in the jars of the given mod.
+	 */
+	public static List<Class<? extends IScriptEntity>> getModuleClasses(AggregateModuleInfo info) {
+		loadRegistry();
+		return Collections.unmodifiableList(moduleClasses.getOrDefault(info, Collections.emptyList()));
+	}
+	
+	/**
+	 * @param info The mod to get the global event classes for.
+	 *
+	 * @return the instantiable classes implementing {@link IGlobalEvent} found in the jars of the given mod.
+	 */
+	public static List<Class<? extends IGlobalEvent>> getGlobalEventClasses(AggregateModuleInfo info) {
+		loadRegistry();
+		return Collections.unmodifiableList(globalEventClasses.getOrDefault(info, Collections.emptyList()));
+	}
+	
+	/**
+	 * @param info The mod to get the room event classes for.
+	 *
+	 * @return the instantiable classes implementing {@link IRoomEvent} found in the jars of the given mod.
+	 */
+	public static List<Class<? extends IRoomEvent>> getRoomEventClasses(AggregateModuleInfo info) {
+		loadRegistry();
+		return Collections.unmodifiableList(roomEventClasses.getOrDefault(info, Collections.emptyList()));
+	}
+	
+	/**
+	 * @return a class loader that sees the classes of every mod, without defining any class itself.
+	 */
+	public static ClassLoader getClassLoader() {
+		loadRegistry();
+		return classLoaders;
+	}
+	
+	/**
+	 * @param info The mod to get the class loader for.
+	 *
+	 * @return the class loader that defined the classes of the given mod.
+	 */
+	public static ClassLoader getClassLoader(AggregateModuleInfo info) {
+		loadRegistry();
+		return modClassLoaders.get(info);
+	}
+	
+	/**
+	 * Replaces the class loader of the given mod and scans its jars again, so that the classes of the mod are the ones
+	 * found in its {@code script/jar} directory right now. The classes of every other mod are left untouched.
+	 *
+	 * @param info The mod to reload.
+	 *
+	 * @return the previous class loader of the mod, which has been closed. It can only be garbage collected once every
+	 * instance of its classes has been released.
+	 *
+	 * @apiNote The previous class loader cannot load any class after this call, so the state of the modules of the mod
+	 * has to be taken beforehand. Mods that link against classes of the reloaded mod keep the classes of the previous
+	 * loader, or fail with a {@link NoClassDefFoundError} for classes it had not loaded yet, until they are reloaded
+	 * as well.
+	 */
+	public static ClassLoader reload(AggregateModuleInfo info) {
+		loadRegistry();
+		
+		ModClassLoader previous = modClassLoaders.remove(info);
+		
+		try {
+			previous.close();
+		} catch (IOException e) {
+			Logger.warn("IO exception while trying to close the class loader of mod: %s", info.name);
+		}
+		
+		Collection<JarFile> jarFiles = FileManager.getJarFilesInDirectory(info.paths.scriptsPath.resolve("jar"));
+		info.jarFiles.clear();
+		
+		if (jarFiles != null) {
+			info.jarFiles.addAll(jarFiles);
+		}
+		
+		createLoader(info);
+		List<ModScan> scans = scanMods(Collections.singletonList(info));
+		
+		Logger.info("Reloaded %d jar(s) of mod %s.", scans.get(0).entries.size(), info.name);
+		return previous;
+	}
+	
+	private static void loadRegistry() {
+		if (!registryLoaded) {
+			long start = System.nanoTime();
+			
+			createModuleInfos();
+			classLoaders = new ModClassLoaderGroup(ModuleRegistry.class.getClassLoader());
+			moduleInfos.forEach(ModuleRegistry::createLoader);
+			
+			List<ModScan> scans = scanMods(moduleInfos);
+			
+			registryLoaded = true;
+			
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			int pendingCount = scans.stream().mapToInt(scan -> scan.pendingEntries.size()).sum();
+			int jarCount = scans.stream().mapToInt(scan -> scan.entries.size()).sum();
+			Logger.info(
+					"Scanned %d of %d jar(s) of %d mod(s) in %d ms.",
+					pendingCount,
+					jarCount,
+					moduleInfos.size(),
+					elapsed
+			);
+		}
+	}
+	
+	/**
+	 * Scans the jars of the given mods and loads their modules and events. Only the jars that changed since their index
+	 * entry was written are scanned again, and the classes that depend on other jars are classified again.
+	 */
+	private static List<ModScan> scanMods(List<AggregateModuleInfo> infos) {
+		List<ModScan> scans = StartupExecutor.map(infos, ModuleRegistry::scanJarFiles);
+		ClassHierarchy hierarchy = new ClassHierarchy(classLoaders);
+		Map<JarScanIndex.Entry, Collection<ClassFileHeader>> pendingEntries = new LinkedHashMap<>();
+		
+		for (ModScan scan : scans) {
+			scan.pendingEntries.forEach((entry, headers) -> headers.forEach(header -> hierarchy.add(header, entry)));
+			pendingEntries.putAll(scan.pendingEntries);
+		}
+		
+		BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.TYPE_FILTERING, null, null);
+		
+		try {
+			pendingEntries.forEach((entry, headers) -> classifyHeaders(entry, headers, hierarchy));
+			scans.forEach(scan -> classifyDependentClasses(scan, hierarchy));
+		} finally {
+			measurement.stop();
+		}
+		
+		scans.forEach(scan -> scan.index.store());
+		
+		return StartupExecutor.map(scans, ModuleRegistry::loadClasses);
+	}
+	
+	private static void createModuleInfos() {
+		for (ModInfo info : PATHS.currentMods()) {
+			BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.MOD_INFO_CREATION, info.name, null);
+			
+			try {
+				moduleInfos.add(createModuleInfo(info));
+			} finally {
+				measurement.stop();
+			}
+		}
+	}
+	
+	private static AggregateModuleInfo createModuleInfo(ModInfo info) {
+		Path absolutePath = Paths.get(info.absolutePath, File.separator + "V63");
+		Path campaignsPath = absolutePath.resolve("campaigns");
+		Path examplesPath = absolutePath.resolve("examples");
+		Path savesPath = absolutePath.resolve("saves");
+		Path scriptsPath = absolutePath.resolve("script");
+		
+		Version version = new Version(info.version);
+		
+		AggregateModulePaths paths = new AggregateModulePaths(
+				absolutePath,
+				campaignsPath,
+				examplesPath,
+				savesPath,
+				scriptsPath
+		);
+		
+		Collection<JarFile> jarFiles = FileManager.getJarFilesInDirectory(paths.scriptsPath.resolve("jar"));
+		
+		return new AggregateModuleInfo(
+				info.name,
+				info.desc,
+				info.author,
+				version,
+				paths,
+				jarFiles != null ? jarFiles : Collections.emptyList()
+		);
+	}
+	
+	/**
+	 * Looks up every jar of the given mod. Jars declaring their entry points through {@link DeclaredEntryPoints} are
+	 * neither enumerated nor fingerprinted. Any other jar is looked up in the scan index of the mod, and if it changed
+	 * since the index was written, its {@link ClassFileHeader}s are read and classified once all mods have been
+	 * scanned.
+	 */
+	private static ModScan scanJarFiles(AggregateModuleInfo info) {
+		BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.JAR_ENUMERATION, info.name, null);
+		
+		try {
+			ModScan scan = new ModScan(info, JarScanIndex.load(info.paths.scriptsPath.resolve(INDEX_FILE_NAME)));
+			
+			for (JarFile jarFile : info.jarFiles) {
+				try (JarFile openJarFile = jarFile) {
+					JarScanIndex.Entry entry = DeclaredEntryPoints.read(openJarFile);
+					
+					if (entry == null) {
+						entry = scan.index.lookup(Paths.get(openJarFile.getName()));
+					}
+					
+					if (!entry.isScanned()) {
+						scan.pendingEntries.put(entry, readHeaders(openJarFile));
+					}
+					
+					scan.entries.add(entry);
+				} catch (IOException e) {
+					Logger.error("IO exception while trying to scan jar file: %s", jarFile.getName());
+				}
+			}
+			
+			return scan;
+		} finally {
+			measurement.stop();
+		}
+	}
+	
+	/**
+	 * Reads the {@link ClassFileHeader} of every class in the given jar, without loading any of them.
+	 */
+	@SuppressWarnings("HardcodedFileSeparator")
+	private static Collection<ClassFileHeader> readHeaders(JarFile jarFile) {
+		Collection<ClassFileHeader> headers = new ArrayList<>();
+		Enumeration<JarEntry> entries = jarFile.entries();
+		
+		while (entries.hasMoreElements()) {
+			JarEntry entry = entries.nextElement();
+			String entryName = entry.getName();
+			
+			if (entry.isDirectory() || !entryName.endsWith(".class")) {
+				continue;
+			}
+			
+			if (entryName.endsWith("package-info.class") || entryName.endsWith("module-info.class")) {
+				continue;
+			}
+			
+			try (InputStream stream = jarFile.getInputStream(entry)) {
+				headers.add(ClassFileHeader.read(stream));
+			} catch (IOException e) {
+				Logger.warn("Skipping unreadable class file %s in jar file: %s", entryName, jarFile.getName());
+			}
+		}
+		
+		return headers;
+	}
+	
+	/**
+	 * Records the classes of a rescanned jar that the hierarchy identifies as modules or events in its index entry.
+	 * Concrete classes whose type depends on other jars are recorded as dependent classes instead.
+	 */
+	private static void classifyHeaders(
+			JarScanIndex.Entry entry,
+			Iterable<ClassFileHeader> headers,
+			ClassHierarchy hierarchy
+	) {
+		for (ClassFileHeader header : headers) {
+			if (header.isInterface() || header.isAbstract()) {
+				continue;
+			}
+			
+			if (hierarchy.dependsOnOtherJars(header, entry)) {
+				entry.getDependentClasses().add(new JarScanIndex.DependentClass(header));
+				continue;
+			}
+			
+			if (hierarchy.isInstantiableSubtype(header, IScriptEntity.class)) {
+				entry.getModules().add(header.getName());
+			}
+			
+			if (hierarchy.isInstantiableSubtype(header, IGlobalEvent.class)) {
+				entry.getGlobalEvents().add(header.getName());
+			} else if (hierarchy.isInstantiableSubtype(header, IRoomEvent.class)) {
+				entry.getRoomEvents().add(header.getName());
+			}
+		}
+		
+		entry.markScanned();
+	}
+	
+	/**
+	 * Classifies the dependent classes of every jar of the given mod against the current classes of the other jars.
+	 * The results are kept for this launch only.
+	 */
+	private static void classifyDependentClasses(ModScan scan, ClassHierarchy hierarchy) {
+		for (JarScanIndex.Entry entry : scan.entries) {
+			for (JarScanIndex.DependentClass dependent : entry.getDependentClasses()) {
+				String superName = dependent.getSuperName();
+				List<String> interfaceNames = dependent.getInterfaceNames();
+				
+				if (hierarchy.hasSupertype(superName, interfaceNames, IScriptEntity.class)) {
+					scan.dependentModules.add(dependent.getName());
+				}
+				
+				if (hierarchy.hasSupertype(superName, interfaceNames, IGlobalEvent.class)) {
+					scan.dependentGlobalEvents.add(dependent.getName());
+				} else if (hierarchy.hasSupertype(superName, interfaceNames, IRoomEvent.class)) {
+					scan.dependentRoomEvents.add(dependent.getName());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Loads the modules and events recorded in the index entries of the given mod. Any other class is never loaded by
+	 * the registry, and thus never linked or initialized until a module references it.
+	 */
+	private static ModScan loadClasses(ModScan scan) {
+		List<Class<? extends IScriptEntity>> modules = new ArrayList<>();
+		List<Class<? extends IGlobalEvent>> globalEvents = new ArrayList<>();
+		List<Class<? extends IRoomEvent>> roomEvents = new ArrayList<>();
+		ClassLoader loader = modClassLoaders.get(scan.info);
+		
+		BootProfiler.Measurement measurement = BootProfiler.measure(BootPhase.CLASS_LOADING, scan.info.name, null);
+		
+		try {
+			for (JarScanIndex.Entry entry : scan.entries) {
+				entry.getModules().forEach(className -> loadClass(loader, className, IScriptEntity.class, modules));
+				entry.getGlobalEvents().forEach(className -> loadClass(loader, className, IGlobalEvent.class, globalEvents));
+				entry.getRoomEvents().forEach(className -> loadClass(loader, className, IRoomEvent.class, roomEvents));
+			}
+			
+			scan.dependentModules.forEach(className -> loadClass(loader, className, IScriptEntity.class, modules));
+			scan.dependentGlobalEvents.forEach(className -> loadClass(loader, className, IGlobalEvent.class, globalEvents));
+			scan.dependentRoomEvents.forEach(className -> loadClass(loader, className, IRoomEvent.class, roomEvents));
+		} finally {
+			measurement.stop();
+		}
+		
+		moduleClasses.put(scan.info, modules);
+		globalEventClasses.put(scan.info, globalEvents);
+		roomEventClasses.put(scan.info, roomEvents);
+		
+		return scan;
+	}
+	
+	private static <Type> void loadClass(
+			ClassLoader loader,
+			String className,
+			Class<Type> type,
+			Collection<Class<? extends Type>> classes
+	) {
+		Class<?> clazz;
+		
+		try {
+			clazz = loader.loadClass(className);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new IllegalArgumentException(e);
+		}
+		
+		if (!type.isAssignableFrom(clazz)) {
+			Logger.warn("Skipping %s, it does not implement %s.", className, type.getSimpleName());
+			return;
+		}
+		
+		if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+			Logger.warn("Skipping %s, it cannot be instantiated.", className);
+			return;
+		}
+		
+		classes.add(clazz.asSubclass(type));
+	}
+	
+	/**
+	 * Creates the class loader of the given mod. The jars are shadow copied while hot reloading is enabled, so they
+	 * can be replaced while the game is running.
+	 */
+	private static void createLoader(AggregateModuleInfo info) {
+		try {
+			modClassLoaders.put(info, ModClassLoader.create(info, classLoaders, FrameworkSettings.isHotReloadEnabled()));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * The result of scanning the jars of a single mod.
+	 */
+	private static final class ModScan {
+		private final AggregateModuleInfo info;
+		private final JarScanIndex index;
+		private final List<JarScanIndex.Entry> entries;
+		private final Map<JarScanIndex.Entry, Collection<ClassFileHeader>> pendingEntries;
+		private final List<String> dependentModules;
+		private final List<String> dependentGlobalEvents;
+		private final List<String> dependentRoomEvents;
+		
+		private ModScan(AggregateModuleInfo info, JarScanIndex index) {
+			this.info = info;
+			this.index = index;
+			this.entries = new ArrayList<>();
+			this.pendingEntries = new LinkedHashMap<>();
+			this.dependentModules = new ArrayList<>();
+			this.dependentGlobalEvents = new ArrayList<>();
+			this.dependentRoomEvents = new ArrayList<>();
+		}
+	}
+}
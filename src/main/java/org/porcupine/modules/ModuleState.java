@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.utilities.Logger;
+import snake2d.util.file.FileGetter;
+import snake2d.util.file.FilePutter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Carries the state of a module over to a new instance of its class when the mod of the module is hot reloaded. The
+ * state is whatever the module writes in {@link ISerializable#onSerialize(FilePutter)}, and is read back by the new
+ * instance in {@link ISerializable#onDeserialize(FileGetter)}, exactly like when a game is saved and loaded again.
+ *
+ * @author Milan Dierick
+ * @implNote The game only reads and writes its files through the file system, so the state is written to a temporary
+ * file, which is deleted right away. Only the bytes of the state are kept in memory until the new instance has been
+ * created.
+ */
+public final class ModuleState {
+	private static final int BUFFER_SIZE = 16 * 1024 * 1024;
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private ModuleState() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param module The module to take the state of.
+	 *
+	 * @return the state of the module, or null if it could not be taken.
+	 */
+	public static @Nullable byte[] capture(ISerializable module) {
+		Path file = null;
+		
+		try {
+			file = Files.createTempFile("porcupine-state", ".save");
+			
+			FilePutter putter = new FilePutter(file, BUFFER_SIZE);
+			module.onSerialize(putter);
+			putter.zip();
+			
+			return Files.readAllBytes(file);
+		} catch (IOException | RuntimeException e) {
+			Logger.warn("Could not take the state of module %s, it will be reloaded without it.", module.getClass().getName());
+			return null;
+		} finally {
+			delete(file);
+		}
+	}
+	
+	/**
+	 * Reads a state taken by {@link #capture(ISerializable)} into a new instance of the module. The new instance has
+	 * already been initialized, just like a module that reads the state of a loaded game.
+	 *
+	 * @param module The new instance of the module.
+	 * @param state  The state of the previous instance.
+	 */
+	public static void restore(ISerializable module, byte[] state) {
+		Path file = null;
+		
+		try {
+			file = Files.createTempFile("porcupine-state", ".save");
+			Files.write(file, state);
+			
+			module.onDeserialize(new FileGetter(file, true));
+		} catch (IOException | RuntimeException e) {
+			Logger.warn("Could not restore the state of module %s after reloading it.", module.getClass().getName());
+		} finally {
+			delete(file);
+		}
+	}
+	
+	private static void delete(@Nullable Path file) {
+		if (file == null) {
+			return;
+		}
+		
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			Logger.warn("IO exception while trying to delete temporary file: %s", file);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.porcupine.utilities.FrameworkSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the independent, per-mod steps of the startup process. The steps run one after another on the calling thread,
+ * unless a parallel startup is enabled through {@link FrameworkSettings#isParallelStartupEnabled()}, in which case they
+ * run on a bounded fork-join pool.
+ *
+ * @implNote Results are always returned in the order of the given items, so merging them keeps the mod order
+ * deterministic regardless of the order in which the steps complete.
+ */
+final class StartupExecutor {
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private StartupExecutor() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @param items    The items to apply the step to, typically the infos of all mods.
+	 * @param function The step to apply to every item.
+	 *
+	 * @return the results of the step, in the order of the given items.
+	 */
+	static <Item, Result> List<Result> map(List<Item> items, Function<? super Item, ? extends Result> function) {
+		if (!FrameworkSettings.isParallelStartupEnabled() || items.size() < 2) {
+			List<Result> results = new ArrayList<>(items.size());
+			
+			for (Item item : items) {
+				results.add(function.apply(item));
+			}
+			
+			return results;
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(Math.min(FrameworkSettings.getStartupParallelism(), items.size()));
+		
+		try {
+			return pool.submit(() -> items.parallelStream().map(function).collect(Collectors.<Result>toList())).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the changes to game state a module requests during its tick, so that modules can be ticked off the main
+ * thread without touching game state concurrently. After the tick phase of every update, the {@link TickScheduler}
+ * applies the recorded commands on the main thread, module by module in the order the modules were added, and every
+ * command of a module in the order it was recorded. The order does not depend on the thread a module was ticked on.
+ * <p>
+ * Usage, from within {@link org.porcupine.modules.ITickCapable#onTick(double)}:
+ * <pre>{@code
+ * CommandBuffer.current().record(() -> room.setEnabled(false));
+ * }</pre>
+ *
+ * @author Milan Dierick
+ */
+public final class CommandBuffer {
+	private static final ThreadLocal<CommandBuffer> current = new ThreadLocal<>();
+	
+	private final List<GameCommand> commands;
+	
+	CommandBuffer() {
+		this.commands = new ArrayList<>();
+	}
+	
+	/**
+	 * @return the command buffer of the module being ticked on the current thread.
+	 *
+	 * @throws IllegalStateException If no module is being ticked on the current thread.
+	 */
+	public static CommandBuffer current() {
+		CommandBuffer buffer = current.get();
+		
+		if (buffer == null) {
+			throw new IllegalStateException("Commands can only be recorded while a module is being ticked.");
+		}
+		
+		return buffer;
+	}
+	
+	/**
+	 * Records a command, which is applied on the main thread after the tick phase of the current update.
+	 *
+	 * @param command The command to record.
+	 */
+	public void record(GameCommand command) {
+		commands.add(command);
+	}
+	
+	/**
+	 * Makes the given buffer the buffer of the current thread, or clears it if the buffer is null.
+	 */
+	static void bind(@Nullable CommandBuffer buffer) {
+		if (buffer != null) {
+			current.set(buffer);
+		} else {
+			current.remove();
+		}
+	}
+	
+	boolean isEmpty() {
+		return commands.isEmpty();
+	}
+	
+	/**
+	 * Applies every recorded command in the order it was recorded, and clears the buffer.
+	 */
+	void playBack() {
+		try {
+			for (GameCommand command : commands) {
+				command.apply();
+			}
+		} finally {
+			commands.clear();
+		}
+	}
+}
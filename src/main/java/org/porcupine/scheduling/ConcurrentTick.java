@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link org.porcupine.modules.ITickCapable} module whose {@link org.porcupine.modules.ITickCapable#onTick(double)}
+ * may be invoked off the main thread, concurrently with the ticks of other modules. Every tick of an update has
+ * completed before the events of that update are dispatched.
+ *
+ * @author Milan Dierick
+ * @apiNote Only use this for modules that synchronize every access to state they share with other modules, or that
+ * only read game state. Changes to game state can be recorded in the {@link CommandBuffer} of the module instead.
+ * @see TickScheduler
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConcurrentTick {
+	/**
+	 * @return true if the module only reads game state. Such a module is ticked in the order it was added, concurrently
+	 * with the read-only modules added right before or after it and with thread-safe modules, but never while a module
+	 * that is not concurrent is being ticked. False if the module is thread-safe, in which case it is ticked alongside
+	 * every other module.
+	 */
+	boolean readOnly() default false;
+}
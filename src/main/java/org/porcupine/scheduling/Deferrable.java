@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link org.porcupine.modules.ITickCapable} module whose ticks may be postponed to a later update when the
+ * tick budget of the current update has been spent, see {@link org.porcupine.utilities.FrameworkSettings#getTickBudgetNanos()}.
+ * Without a tick budget the annotation has no effect.
+ * <p>
+ * A postponed tick is not lost: the module is ticked once it gets its turn, with the game time accumulated since its
+ * previous tick. Modules without this annotation are ticked whenever they are due, regardless of the budget.
+ *
+ * @author Milan Dierick
+ * @see TickScheduler
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Deferrable {
+	/**
+	 * @return the priority of the module, postponed modules with a higher priority are ticked first. Modules of the same
+	 * priority take turns.
+	 */
+	int priority() default 0;
+	
+	/**
+	 * @return the number of consecutive updates the tick of the module may be postponed, after which it is ticked
+	 * regardless of the budget.
+	 */
+	int maxDeferrals() default 10;
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+/**
+ * A change to game state recorded in a {@link CommandBuffer}, for example spawning an entity, adding a resource to a
+ * stockpile or modifying a room. The command is applied on the main thread after the tick phase.
+ *
+ * @author Milan Dierick
+ */
+@FunctionalInterface
+public interface GameCommand {
+	/**
+	 * Applies the change to game state. Invoked on the main thread.
+	 */
+	void apply();
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+/**
+ * Handles the timers scheduled under a single key on the {@link TimerService}.
+ *
+ * @author Milan Dierick
+ */
+@FunctionalInterface
+public interface ITimerHandler {
+	/**
+	 * This method is called on the main thread when a timer scheduled under the key of the handler expires.
+	 *
+	 * @param payload the value the timer was scheduled with.
+	 */
+	void onTimer(long payload);
+}
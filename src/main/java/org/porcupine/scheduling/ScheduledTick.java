@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.diagnostics.AllocationProfiler;
+import org.porcupine.diagnostics.ModuleCallback;
+import org.porcupine.diagnostics.ModuleProfiler;
+import org.porcupine.modules.ITickCapable;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A module registered with the {@link TickScheduler}, along with the position of its next tick on its {@link TickWheel}.
+ * Modules ticked on every update have no wheel. A deferrable module is pending while its tick waits for budget.
+ */
+final class ScheduledTick {
+	final ITickCapable tickCapable;
+	final @Nullable TickWheel wheel;
+	final long sequence;
+	final long period;
+	final @Nullable Deferrable deferrable;
+	final @Nullable ConcurrentTick concurrentTick;
+	final CommandBuffer commands;
+	final @Nullable LongSupplier clock;
+	long deadline;
+	double lastGameTime;
+	double delta;
+	boolean cancelled;
+	boolean pending;
+	int deferrals;
+	long costNanos;
+	double averageCostNanos;
+	int offences;
+	int slowdown;
+	int skipped;
+	
+	ScheduledTick(
+			ITickCapable tickCapable,
+			@Nullable TickWheel wheel,
+			long sequence,
+			long period,
+			@Nullable Deferrable deferrable,
+			@Nullable ConcurrentTick concurrentTick,
+			double lastGameTime,
+			@Nullable LongSupplier clock
+	) {
+		this.tickCapable = tickCapable;
+		this.wheel = wheel;
+		this.sequence = sequence;
+		this.period = period;
+		this.deferrable = deferrable;
+		this.concurrentTick = concurrentTick;
+		this.commands = new CommandBuffer();
+		this.clock = clock;
+		this.lastGameTime = lastGameTime;
+		this.cancelled = false;
+		this.pending = false;
+		this.deferrals = 0;
+		this.costNanos = 0;
+		this.averageCostNanos = 0;
+		this.offences = 0;
+		this.slowdown = 1;
+		this.skipped = 0;
+	}
+	
+	/**
+	 * Ticks the module with its command buffer bound to the current thread. The cost of the tick is measured if the
+	 * tick has a clock.
+	 */
+	void invoke(double delta) {
+		CommandBuffer.bind(commands);
+		long allocationStart = AllocationProfiler.start();
+		long start = ModuleProfiler.start();
+		long clockStart = clock != null ? clock.getAsLong() : 0;
+		
+		try {
+			tickCapable.onTick(delta);
+		} finally {
+			if (clock != null) {
+				costNanos = clock.getAsLong() - clockStart;
+			}
+			
+			ModuleProfiler.stop(tickCapable, ModuleCallback.TICK, start);
+			AllocationProfiler.stop(tickCapable, ModuleCallback.TICK, allocationStart);
+			CommandBuffer.bind(null);
+		}
+	}
+	
+	/**
+	 * @return true if the tick should be skipped this time it is due, because its module was removed or demoted.
+	 */
+	boolean skip() {
+		if (cancelled) {
+			return true;
+		}
+		
+		if (slowdown > 1 && ++skipped < slowdown) {
+			return true;
+		}
+		
+		skipped = 0;
+		return false;
+	}
+}
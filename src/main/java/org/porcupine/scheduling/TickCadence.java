@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how often an {@link org.porcupine.modules.ITickCapable} module is ticked. Exactly one of the cadences has to
+ * be declared. A module without this annotation is ticked on every game update. The cadence is inherited by subclasses.
+ * <p>
+ * The delta passed to {@link org.porcupine.modules.ITickCapable#onTick(double)} is the game time accumulated since
+ * the previous tick of the module, so no game time is lost between ticks.
+ *
+ * @author Milan Dierick
+ * @see TickScheduler
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TickCadence {
+	/**
+	 * @return the number of game updates between two ticks of the module.
+	 */
+	int updates() default 0;
+	
+	/**
+	 * @return the number of ticks per second of real time, independent of the game speed.
+	 */
+	double hertz() default 0;
+	
+	/**
+	 * @return the number of seconds of game time between two ticks of the module, which scales with the game speed and
+	 * stops while the game is paused.
+	 */
+	double gameSeconds() default 0;
+}
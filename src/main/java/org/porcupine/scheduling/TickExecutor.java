@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the ticks of a single update on the main thread and a pool of worker threads. Modules marked
+ * {@link ConcurrentTick} run on the workers: thread-safe modules for the whole tick phase, read-only modules alongside
+ * the read-only modules right before and after them in order. Every other module runs on the calling thread, in order,
+ * so every read-only module sees the state left by the modules before it, exactly like a serial tick. The tick phase
+ * ends once every worker has finished.
+ *
+ * @implNote The worker threads are shared by every executor with the same parallelism, so replacing the
+ * {@link TickScheduler} when another game is created or loaded does not start another pool.
+ */
+final class TickExecutor {
+	private static final Map<Integer, ExecutorService> sharedWorkers = new ConcurrentHashMap<>();
+	private static final AtomicInteger threadCount = new AtomicInteger();
+	
+	private final ExecutorService workers;
+	private final AtomicReference<Throwable> failure;
+	
+	/**
+	 * @param parallelism The number of worker threads.
+	 */
+	TickExecutor(int parallelism) {
+		this.workers = sharedWorkers.computeIfAbsent(parallelism, TickExecutor::createWorkers);
+		this.failure = new AtomicReference<>();
+	}
+	
+	private static ExecutorService createWorkers(int parallelism) {
+		return Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "Porcupine tick worker " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Ticks the given modules with the delta stored in their {@link ScheduledTick}, and returns once every tick has
+	 * completed.
+	 *
+	 * @param threadSafeTicks The ticks of modules that may run alongside any other module.
+	 * @param orderedTicks    The ticks of every other module, including read-only modules, in the order they have to
+	 *                        run in.
+	 */
+	void run(List<ScheduledTick> threadSafeTicks, List<ScheduledTick> orderedTicks) {
+		CountDownLatch threadSafeDone = submit(threadSafeTicks, 0, threadSafeTicks.size());
+		
+		try {
+			int index = 0;
+			
+			while (index < orderedTicks.size()) {
+				if (!isReadOnly(orderedTicks.get(index))) {
+					ScheduledTick tick = orderedTicks.get(index++);
+					tick.invoke(tick.delta);
+					continue;
+				}
+				
+				int end = index + 1;
+				
+				while (end < orderedTicks.size() && isReadOnly(orderedTicks.get(end))) {
+					end++;
+				}
+				
+				await(submit(orderedTicks, index, end));
+				index = end;
+			}
+		} finally {
+			await(threadSafeDone);
+		}
+		
+		Throwable throwable = failure.getAndSet(null);
+		
+		if (throwable instanceof RuntimeException) {
+			throw (RuntimeException) throwable;
+		}
+		
+		if (throwable instanceof Error) {
+			throw (Error) throwable;
+		}
+		
+		if (throwable != null) {
+			throw new IllegalStateException(throwable);
+		}
+	}
+	
+	private static boolean isReadOnly(ScheduledTick tick) {
+		return tick.concurrentTick != null && tick.concurrentTick.readOnly();
+	}
+	
+	/**
+	 * Submits the ticks in the given range to the workers.
+	 */
+	private CountDownLatch submit(List<ScheduledTick> ticks, int from, int to) {
+		CountDownLatch latch = new CountDownLatch(to - from);
+		
+		for (int i = from; i < to; i++) {
+			ScheduledTick tick = ticks.get(i);
+			
+			workers.execute(() -> {
+				try {
+					tick.invoke(tick.delta);
+				} catch (Throwable throwable) {
+					failure.compareAndSet(null, throwable);
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		
+		return latch;
+	}
+	
+	private static void await(CountDownLatch latch) {
+		boolean interrupted = false;
+		
+		while (true) {
+			try {
+				latch.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
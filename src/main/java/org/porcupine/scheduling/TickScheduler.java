@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.modules.ITickCapable;
+import org.porcupine.utilities.FrameworkSettings;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Ticks {@link ITickCapable} modules at the cadence they declare through {@link TickCadence}. Modules without a
+ * cadence are ticked on every update. Every other module waits on a {@link TickWheel} for its cadence: one counting
+ * game updates, one counting milliseconds of real time and one counting hundredths of a second of game time.
+ * <p>
+ * With a tick budget, modules marked {@link Deferrable} are ticked after every other due module, by priority, for as
+ * long as the budget of the update lasts. The modules that did not get their turn stay pending until a later update,
+ * and are ticked regardless of the budget once they have been postponed too often. Every other module is always
+ * ticked in the order it was added, regardless of its cadence.
+ * <p>
+ * With a tick parallelism above one, modules marked {@link ConcurrentTick} are ticked on a {@link TickExecutor}
+ * instead. Every tick of an update has completed before {@link #update(double)} returns.
+ * <p>
+ * Once every tick of an update has completed, the {@link CommandBuffer}s of the ticked modules are played back on the
+ * calling thread, in the order the modules were added.
+ * <p>
+ * With a {@link TickWatchdog}, the cost of every tick is measured and modules that exceed the budget of the watchdog
+ * are reported, and optionally demoted or quarantined.
+ *
+ * @author Milan Dierick
+ */
+public final class TickScheduler {
+	private static final int WHEEL_SIZE = 256;
+	private static final double GAME_TIME_RESOLUTION = 100.0;
+	
+	private final List<ScheduledTick> everyUpdate;
+	private final Map<ITickCapable, ScheduledTick> scheduledTicks;
+	private final TickWheel updateWheel;
+	private final TickWheel realTimeWheel;
+	private final TickWheel gameTimeWheel;
+	private final List<ScheduledTick> due;
+	private final List<ScheduledTick> ticked;
+	private final List<ScheduledTick> threadSafeTicks;
+	private final List<ScheduledTick> orderedTicks;
+	private final List<ScheduledTick> executedTicks;
+	private final NavigableMap<Integer, Deque<ScheduledTick>> pendingTicks;
+	private final LongSupplier clock;
+	private final long budgetNanos;
+	private final int parallelism;
+	private final long startNanos;
+	private final @Nullable TickWatchdog watchdog;
+	private @Nullable TickExecutor executor;
+	private int concurrentCount;
+	private boolean executedOutOfOrder;
+	private long updateCount;
+	private double gameTime;
+	private long sequence;
+	
+	public TickScheduler() {
+		this(
+				System::nanoTime,
+				FrameworkSettings.getTickBudgetNanos(),
+				FrameworkSettings.getTickParallelism(),
+				TickWatchdog.fromSettings()
+		);
+	}
+	
+	/**
+	 * @param clock       The source of {@link System#nanoTime()}.
+	 * @param budgetNanos The tick budget of every update in nanoseconds, or zero to tick every module when it is due.
+	 */
+	TickScheduler(LongSupplier clock, long budgetNanos) {
+		this(clock, budgetNanos, 1);
+	}
+	
+	/**
+	 * @param clock       The source of {@link System#nanoTime()}.
+	 * @param budgetNanos The tick budget of every update in nanoseconds, or zero to tick every module when it is due.
+	 * @param parallelism The number of threads ticking concurrent modules, or one to tick every module serially.
+	 */
+	TickScheduler(LongSupplier clock, long budgetNanos, int parallelism) {
+		this(clock, budgetNanos, parallelism, null);
+	}
+	
+	/**
+	 * @param clock       The source of {@link System#nanoTime()}.
+	 * @param budgetNanos The tick budget of every update in nanoseconds, or zero to tick every module when it is due.
+	 * @param parallelism The number of threads ticking concurrent modules, or one to tick every module serially.
+	 * @param watchdog    The watchdog inspecting the cost of every tick, or null to not measure ticks.
+	 */
+	TickScheduler(LongSupplier clock, long budgetNanos, int parallelism, @Nullable TickWatchdog watchdog) {
+		this.everyUpdate = new ArrayList<>();
+		this.scheduledTicks = new IdentityHashMap<>();
+		this.updateWheel = new TickWheel(WHEEL_SIZE, 0);
+		this.realTimeWheel = new TickWheel(WHEEL_SIZE, 0);
+		this.gameTimeWheel = new TickWheel(WHEEL_SIZE, 0);
+		this.due = new ArrayList<>();
+		this.ticked = new ArrayList<>();
+		this.threadSafeTicks = new ArrayList<>();
+		this.orderedTicks = new ArrayList<>();
+		this.executedTicks = new ArrayList<>();
+		this.pendingTicks = new TreeMap<>(Comparator.reverseOrder());
+		this.clock = clock;
+		this.budgetNanos = budgetNanos;
+		this.parallelism = parallelism;
+		this.startNanos = clock.getAsLong();
+		this.watchdog = watchdog;
+		this.executor = null;
+		this.concurrentCount = 0;
+		this.executedOutOfOrder = false;
+		this.updateCount = 0;
+		this.gameTime = 0;
+		this.sequence = 0;
+	}
+	
+	/**
+	 * Starts ticking the given module at the cadence declared by its class.
+	 *
+	 * @param tickCapable The module to tick.
+	 *
+	 * @throws IllegalArgumentException If the class of the module does not declare exactly one cadence.
+	 */
+	public void add(ITickCapable tickCapable) {
+		TickCadence cadence = tickCapable.getClass().getAnnotation(TickCadence.class);
+		Deferrable deferrable = budgetNanos > 0 ? tickCapable.getClass().getAnnotation(Deferrable.class) : null;
+		ConcurrentTick concurrentTick = parallelism > 1 ? tickCapable.getClass().getAnnotation(ConcurrentTick.class) : null;
+		
+		if (concurrentTick != null) {
+			concurrentCount++;
+		}
+		
+		LongSupplier tickClock = watchdog != null ? clock : null;
+		
+		if (cadence == null && deferrable == null) {
+			ScheduledTick tick = new ScheduledTick(
+					tickCapable,
+					null,
+					sequence++,
+					0,
+					null,
+					concurrentTick,
+					gameTime,
+					tickClock
+			);
+			everyUpdate.add(tick);
+			scheduledTicks.put(tickCapable, tick);
+			return;
+		}
+		
+		TickWheel wheel;
+		long period;
+		
+		if (cadence == null) {
+			// Deferrable modules that are due on every update are only ever ticked through the pending ticks.
+			wheel = updateWheel;
+			period = 1;
+		} else {
+			validateCadence(tickCapable, cadence);
+			
+			if (cadence.updates() > 0) {
+				wheel = updateWheel;
+				period = cadence.updates();
+			} else if (cadence.hertz() > 0) {
+				wheel = realTimeWheel;
+				period = Math.max(1, Math.round(1000 / cadence.hertz()));
+			} else {
+				wheel = gameTimeWheel;
+				period = Math.max(1, Math.round(cadence.gameSeconds() * GAME_TIME_RESOLUTION));
+			}
+		}
+		
+		ScheduledTick tick = new ScheduledTick(
+				tickCapable,
+				wheel,
+				sequence++,
+				period,
+				deferrable,
+				concurrentTick,
+				gameTime,
+				tickClock
+		);
+		wheel.schedule(tick, wheel.getPosition());
+		scheduledTicks.put(tickCapable, tick);
+	}
+	
+	private static void validateCadence(ITickCapable tickCapable, TickCadence cadence) {
+		int declaredCount = (cadence.updates() > 0 ? 1 : 0)
+				+ (cadence.hertz() > 0 ? 1 : 0)
+				+ (cadence.gameSeconds() > 0 ? 1 : 0);
+		
+		if (declaredCount != 1) {
+			throw new IllegalArgumentException(String.format(
+					"Module %s has to declare exactly one tick cadence.",
+					tickCapable.getClass().getName()
+			));
+		}
+	}
+	
+	/**
+	 * Stops ticking the given module.
+	 *
+	 * @param tickCapable The module to stop ticking, ignored if it is null or was never added.
+	 */
+	public void remove(ITickCapable tickCapable) {
+		ScheduledTick tick = scheduledTicks.remove(tickCapable);
+		
+		if (tick != null) {
+			tick.cancelled = true;
+			everyUpdate.remove(tick);
+			
+			if (tick.concurrentTick != null) {
+				concurrentCount--;
+			}
+		}
+	}
+	
+	/**
+	 * @param ds The time in seconds since the last game update, zero while the game is paused.
+	 */
+	public void update(double ds) {
+		update(ds, clock.getAsLong());
+	}
+	
+	/**
+	 * @param ds       The time in seconds since the last game update, zero while the game is paused.
+	 * @param nanoTime The current value of {@link System#nanoTime()}.
+	 */
+	void update(double ds, long nanoTime) {
+		updateCount++;
+		gameTime += ds;
+		
+		updateWheel.advance(updateCount, due);
+		realTimeWheel.advance(TimeUnit.NANOSECONDS.toMillis(nanoTime - startNanos), due);
+		gameTimeWheel.advance((long) (gameTime * GAME_TIME_RESOLUTION), due);
+		
+		if (due.isEmpty()) {
+			tickAll(everyUpdate);
+		} else {
+			due.sort(Comparator.comparingLong(tick -> tick.sequence));
+			
+			if (budgetNanos > 0) {
+				deferDueTicks();
+			}
+			
+			mergeDueTicks();
+			tickAll(ticked);
+			
+			for (ScheduledTick tick : due) {
+				if (!tick.cancelled) {
+					tick.wheel.schedule(tick, tick.deadline);
+				}
+			}
+			
+			due.clear();
+			ticked.clear();
+		}
+		
+		if (!pendingTicks.isEmpty()) {
+			tickPending(nanoTime);
+		}
+		
+		if (watchdog != null) {
+			inspectExecutedTicks(watchdog);
+		}
+		
+		playBackCommands();
+	}
+	
+	/**
+	 * Lets the watchdog inspect the cost of every module ticked during this update, and removes the modules it
+	 * quarantines.
+	 */
+	private void inspectExecutedTicks(TickWatchdog watchdog) {
+		for (ScheduledTick tick : executedTicks) {
+			if (watchdog.inspect(tick)) {
+				remove(tick.tickCapable);
+			}
+		}
+	}
+	
+	/**
+	 * Applies the commands recorded by every module ticked during this update, in the order the modules were added.
+	 */
+	private void playBackCommands() {
+		if (executedOutOfOrder) {
+			executedTicks.sort(Comparator.comparingLong(tick -> tick.sequence));
+			executedOutOfOrder = false;
+		}
+		
+		try {
+			for (ScheduledTick tick : executedTicks) {
+				if (!tick.commands.isEmpty()) {
+					tick.commands.playBack();
+				}
+			}
+		} finally {
+			executedTicks.clear();
+		}
+	}
+	
+	/**
+	 * Ticks the given modules, on the {@link TickExecutor} if any of them is concurrent.
+	 */
+	private void tickAll(List<ScheduledTick> ticks) {
+		if (concurrentCount == 0) {
+			for (ScheduledTick tick : ticks) {
+				tick(tick);
+			}
+			
+			return;
+		}
+		
+		for (ScheduledTick tick : ticks) {
+			if (tick.skip()) {
+				continue;
+			}
+			
+			tick.delta = gameTime - tick.lastGameTime;
+			tick.lastGameTime = gameTime;
+			executedTicks.add(tick);
+			
+			if (tick.concurrentTick == null || tick.concurrentTick.readOnly()) {
+				orderedTicks.add(tick);
+			} else {
+				threadSafeTicks.add(tick);
+			}
+		}
+		
+		if (executor == null) {
+			executor = new TickExecutor(parallelism);
+		}
+		
+		try {
+			executor.run(threadSafeTicks, orderedTicks);
+		} finally {
+			threadSafeTicks.clear();
+			orderedTicks.clear();
+		}
+	}
+	
+	private void tick(ScheduledTick tick) {
+		if (!tick.skip()) {
+			double delta = gameTime - tick.lastGameTime;
+			tick.lastGameTime = gameTime;
+			executedTicks.add(tick);
+			tick.invoke(delta);
+		}
+	}
+	
+	/**
+	 * Moves the due ticks of deferrable modules to the pending ticks, and schedules their next tick right away, so
+	 * their cadence does not drift while they wait for budget.
+	 */
+	private void deferDueTicks() {
+		Iterator<ScheduledTick> iterator = due.iterator();
+		
+		while (iterator.hasNext()) {
+			ScheduledTick tick = iterator.next();
+			
+			if (tick.deferrable == null) {
+				continue;
+			}
+			
+			iterator.remove();
+			tick.wheel.schedule(tick, tick.deadline);
+			
+			if (!tick.pending) {
+				tick.pending = true;
+				tick.deferrals = 0;
+				pendingTicks.computeIfAbsent(tick.deferrable.priority(), priority -> new ArrayDeque<>()).addLast(tick);
+			}
+		}
+	}
+	
+	/**
+	 * Ticks the pending ticks that were postponed too often, and then the others by priority until the budget of the
+	 * update is spent. Modules of the same priority take turns, because the ticks that do not get a turn stay at the
+	 * front of their queue.
+	 *
+	 * @param updateStart The value of {@link System#nanoTime()} at the start of the update.
+	 */
+	private void tickPending(long updateStart) {
+		executedOutOfOrder = true;
+		
+		for (Deque<ScheduledTick> queue : pendingTicks.values()) {
+			Iterator<ScheduledTick> iterator = queue.iterator();
+			
+			while (iterator.hasNext()) {
+				ScheduledTick tick = iterator.next();
+				
+				if (tick.cancelled || tick.deferrals >= tick.deferrable.maxDeferrals()) {
+					iterator.remove();
+					tick.pending = false;
+					tick(tick);
+				}
+			}
+		}
+		
+		Iterator<Deque<ScheduledTick>> queues = pendingTicks.values().iterator();
+		
+		while (queues.hasNext()) {
+			Deque<ScheduledTick> queue = queues.next();
+			
+			while (!queue.isEmpty() && clock.getAsLong() - updateStart < budgetNanos) {
+				ScheduledTick tick = queue.pollFirst();
+				tick.pending = false;
+				tick(tick);
+			}
+			
+			if (queue.isEmpty()) {
+				queues.remove();
+			} else {
+				break;
+			}
+		}
+		
+		for (Deque<ScheduledTick> queue : pendingTicks.values()) {
+			for (ScheduledTick tick : queue) {
+				tick.deferrals++;
+			}
+		}
+	}
+	
+	/**
+	 * Merges the due ticks with the ticks of every update, keeping the order the modules were added in.
+	 */
+	private void mergeDueTicks() {
+		int everyUpdateIndex = 0;
+		int dueIndex = 0;
+		
+		while (everyUpdateIndex < everyUpdate.size() || dueIndex < due.size()) {
+			if (dueIndex == due.size() || everyUpdateIndex < everyUpdate.size()
+					&& everyUpdate.get(everyUpdateIndex).sequence < due.get(dueIndex).sequence) {
+				ticked.add(everyUpdate.get(everyUpdateIndex++));
+			} else {
+				ticked.add(due.get(dueIndex++));
+			}
+		}
+	}
+}
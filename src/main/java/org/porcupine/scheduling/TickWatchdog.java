@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.utilities.FrameworkSettings;
+import org.porcupine.utilities.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the cost of every tick dispatched by the {@link TickScheduler}. A tick costing more than the budget is an
+ * offence, which is reported through the {@link Logger}. Optionally, a module whose average cost stays above the
+ * budget is demoted to tick only once every few times it is due, and a module that keeps offending is quarantined,
+ * after which it is never ticked again.
+ *
+ * @author Milan Dierick
+ * @implNote The average cost is an exponentially weighted moving average, so a single slow tick is reported but does
+ * not demote a module on its own. A demoted module is promoted again, one step at a time, once its average cost has
+ * dropped below half the budget.
+ */
+final class TickWatchdog {
+	private static final double SMOOTHING = 0.25;
+	private static final int MAX_SLOWDOWN = 64;
+	
+	private final long budgetNanos;
+	private final boolean demote;
+	private final int quarantineOffences;
+	
+	/**
+	 * @param budgetNanos        The time a single tick may take in nanoseconds.
+	 * @param demote             True if modules whose average cost exceeds the budget should be ticked less often.
+	 * @param quarantineOffences The number of offences after which a module is no longer ticked, or zero to never
+	 *                           quarantine modules.
+	 */
+	TickWatchdog(long budgetNanos, boolean demote, int quarantineOffences) {
+		this.budgetNanos = budgetNanos;
+		this.demote = demote;
+		this.quarantineOffences = quarantineOffences;
+	}
+	
+	/**
+	 * @return the watchdog configured through the {@link FrameworkSettings}, or null if no budget is set.
+	 */
+	static @Nullable TickWatchdog fromSettings() {
+		long budgetNanos = FrameworkSettings.getWatchdogBudgetNanos();
+		
+		if (budgetNanos <= 0) {
+			return null;
+		}
+		
+		return new TickWatchdog(
+				budgetNanos,
+				FrameworkSettings.isWatchdogDemotionEnabled(),
+				FrameworkSettings.getWatchdogQuarantineOffences()
+		);
+	}
+	
+	/**
+	 * Updates the average cost of the given tick with the cost of its last invocation, and acts on it if it exceeded
+	 * the budget. Only invoked on the thread updating the scheduler, after the tick has completed.
+	 *
+	 * @param tick The tick that was just invoked.
+	 *
+	 * @return true if the module of the tick is quarantined and has to be removed from the scheduler.
+	 */
+	boolean inspect(ScheduledTick tick) {
+		long cost = tick.costNanos;
+		tick.averageCostNanos = tick.averageCostNanos == 0 ? cost : tick.averageCostNanos + SMOOTHING * (cost - tick.averageCostNanos);
+		
+		if (cost > budgetNanos) {
+			tick.offences++;
+			Logger.warn(
+					"Module %s took %.2f ms to tick, exceeding the budget of %.2f ms (average %.2f ms, offence %d).",
+					getName(tick),
+					toMillis(cost),
+					toMillis(budgetNanos),
+					toMillis(tick.averageCostNanos),
+					tick.offences
+			);
+			
+			if (quarantineOffences > 0 && tick.offences >= quarantineOffences) {
+				Logger.error(
+						"Module %s has exceeded the tick budget %d times and is quarantined, it will no longer be ticked.",
+						getName(tick),
+						tick.offences
+				);
+				return true;
+			}
+		}
+		
+		if (!demote) {
+			return false;
+		}
+		
+		if (tick.averageCostNanos > budgetNanos && tick.slowdown < MAX_SLOWDOWN) {
+			tick.slowdown *= 2;
+			Logger.warn(
+					"Module %s is demoted, it is now ticked once every %d times it is due.",
+					getName(tick),
+					tick.slowdown
+			);
+		} else if (tick.averageCostNanos < budgetNanos / 2.0 && tick.slowdown > 1) {
+			tick.slowdown /= 2;
+			Logger.info(
+					"Module %s is promoted, it is now ticked once every %d times it is due.",
+					getName(tick),
+					tick.slowdown
+			);
+		}
+		
+		return false;
+	}
+	
+	private static String getName(ScheduledTick tick) {
+		return tick.tickCapable.getClass().getName();
+	}
+	
+	private static double toMillis(double nanos) {
+		return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
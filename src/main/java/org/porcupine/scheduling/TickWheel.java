@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A hashed timing wheel. Every scheduled tick is kept in the slot of its deadline, so advancing the wheel only visits the
+ * slots that passed since the previous advance, and ticks in any other slot cost nothing.
+ *
+ * @implNote Deadlines more than one rotation ahead share a slot with nearer ones, and are only compared against the
+ * current position whenever that slot is visited.
+ */
+final class TickWheel {
+	private final List<ScheduledTick>[] slots;
+	private final int mask;
+	private long position;
+	
+	/**
+	 * @param size     The number of slots, which has to be a power of two.
+	 * @param position The position the wheel starts at.
+	 */
+	@SuppressWarnings("unchecked")
+	TickWheel(int size, long position) {
+		this.slots = (List<ScheduledTick>[]) new List<?>[size];
+		this.mask = size - 1;
+		this.position = position;
+		
+		for (int i = 0; i < size; i++) {
+			slots[i] = new ArrayList<>();
+		}
+	}
+	
+	/**
+	 * @return the position the wheel was last advanced to.
+	 */
+	long getPosition() {
+		return position;
+	}
+	
+	/**
+	 * Schedules the tick one period after the given position, or right after the current position if that has passed
+	 * already.
+	 */
+	void schedule(ScheduledTick tick, long from) {
+		tick.deadline = Math.max(from + tick.period, position + 1);
+		slots[(int) (tick.deadline & mask)].add(tick);
+	}
+	
+	/**
+	 * Advances the wheel and collects every tick whose deadline has been reached. Cancelled ticks are dropped.
+	 *
+	 * @param target The position to advance to.
+	 * @param due    The collection the due ticks are added to.
+	 */
+	void advance(long target, Collection<ScheduledTick> due) {
+		if (target <= position) {
+			return;
+		}
+		
+		long end = Math.min(target, position + slots.length);
+		
+		for (long current = position + 1; current <= end; current++) {
+			List<ScheduledTick> slot = slots[(int) (current & mask)];
+			int index = 0;
+			
+			while (index < slot.size()) {
+				ScheduledTick tick = slot.get(index);
+				
+				if (tick.cancelled || tick.deadline <= target) {
+					ScheduledTick last = slot.remove(slot.size() - 1);
+					
+					if (index < slot.size()) {
+						slot.set(index, last);
+					}
+					
+					if (!tick.cancelled) {
+						due.add(tick);
+					}
+				} else {
+					index++;
+				}
+			}
+		}
+		
+		position = target;
+	}
+}
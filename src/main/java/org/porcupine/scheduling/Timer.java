@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A timer scheduled on the {@link TimerService}, which can be used to cancel it.
+ *
+ * @author Milan Dierick
+ */
+public final class Timer {
+	final @Nullable String key;
+	final long payload;
+	final @Nullable Runnable callback;
+	boolean cancelled;
+	long deadline;
+	int level;
+	@Nullable Timer previous;
+	@Nullable Timer next;
+	@Nullable TimerWheel wheel;
+	
+	Timer(@Nullable String key, long payload, @Nullable Runnable callback) {
+		this.key = key;
+		this.payload = payload;
+		this.callback = callback;
+		this.cancelled = false;
+		this.deadline = 0;
+		this.level = 0;
+		this.previous = null;
+		this.next = null;
+		this.wheel = null;
+	}
+	
+	/**
+	 * Cancels the timer, if it has not fired yet. A timer that expired during the same update as the timer cancelling
+	 * it does not fire either.
+	 */
+	public void cancel() {
+		cancelled = true;
+		
+		if (wheel != null) {
+			wheel.cancel(this);
+		}
+	}
+	
+	/**
+	 * @return true if the timer has neither expired nor been cancelled.
+	 */
+	public boolean isPending() {
+		return wheel != null;
+	}
+	
+	/**
+	 * @return true if the timer is saved with the game, which is the case for every timer scheduled under a key.
+	 */
+	boolean isPersistent() {
+		return callback == null;
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.porcupine.utilities.Logger;
+import snake2d.util.file.FileGetter;
+import snake2d.util.file.FilePutter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs callbacks after a delay in game time, for example to do something in three game days. Timers are kept on a
+ * {@link TimerWheel} with a resolution of a hundredth of a second, which is advanced by the time passed during every
+ * game update. Scheduling and cancelling a timer takes constant time, and an update only costs as much as the timers
+ * that expire during it.
+ * <p>
+ * A timer scheduled under a key is saved with the game, and is handed to the {@link ITimerHandler} registered for
+ * that key when it expires, even if the game was saved and loaded in between:
+ * <pre>{@code
+ * TimerService.register("my-mod:harvest", payload -> ...);
+ * TimerService.schedule("my-mod:harvest", 3 * SECONDS_PER_DAY, fieldId);
+ * }</pre>
+ * Timers scheduled with a {@link Runnable} are not saved.
+ *
+ * @author Milan Dierick
+ * @implNote Keys are saved as they are, so they have to be unique across mods, for example by starting with the name of
+ * the mod. Timers are only scheduled and fired on the main thread.
+ */
+public final class TimerService {
+	private static final double RESOLUTION = 100.0;
+	
+	private static final Map<String, ITimerHandler> handlers = new HashMap<>();
+	private static final List<Timer> expired = new ArrayList<>();
+	private static TimerWheel wheel = new TimerWheel(0);
+	private static double time = 0;
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private TimerService() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * Registers the handler of the timers scheduled under the given key, replacing any previous handler.
+	 *
+	 * @param key     The key of the timers.
+	 * @param handler The handler to invoke when a timer expires.
+	 */
+	public static void register(String key, ITimerHandler handler) {
+		handlers.put(key, handler);
+	}
+	
+	/**
+	 * Schedules a timer that is saved with the game.
+	 *
+	 * @param key          The key of the handler to invoke when the timer expires.
+	 * @param delaySeconds The delay in game seconds.
+	 * @param payload      The value handed to the handler.
+	 *
+	 * @return the scheduled timer.
+	 */
+	public static Timer schedule(String key, double delaySeconds, long payload) {
+		Timer timer = new Timer(key, payload, null);
+		wheel.schedule(timer, deadline(delaySeconds));
+		return timer;
+	}
+	
+	/**
+	 * Schedules a timer that is not saved with the game.
+	 *
+	 * @param delaySeconds The delay in game seconds.
+	 * @param callback     The callback to invoke when the timer expires.
+	 *
+	 * @return the scheduled timer.
+	 */
+	public static Timer schedule(double delaySeconds, Runnable callback) {
+		Timer timer = new Timer(null, 0, callback);
+		wheel.schedule(timer, deadline(delaySeconds));
+		return timer;
+	}
+	
+	private static long deadline(double delaySeconds) {
+		return wheel.getNow() + (long) Math.ceil(Math.max(0, delaySeconds) * RESOLUTION);
+	}
+	
+	/**
+	 * Fires every timer that expires during the given time, except those cancelled by a timer fired before them.
+	 * Invoked on every game update. A timer that throws is logged, and does not keep the other timers from firing.
+	 *
+	 * @param ds The time in seconds since the last game update, zero while the game is paused.
+	 */
+	public static void update(double ds) {
+		time += ds * RESOLUTION;
+		wheel.advance((long) time, expired);
+		
+		for (Timer timer : expired) {
+			if (timer.cancelled) {
+				continue;
+			}
+			
+			try {
+				fire(timer);
+			} catch (RuntimeException e) {
+				Logger.error("Timer %s failed: %s", timer.key != null ? timer.key : timer.callback, e);
+			}
+		}
+		
+		expired.clear();
+	}
+	
+	private static void fire(Timer timer) {
+		if (timer.callback != null) {
+			timer.callback.run();
+			return;
+		}
+		
+		ITimerHandler handler = handlers.get(timer.key);
+		
+		if (handler != null) {
+			handler.onTimer(timer.payload);
+		} else {
+			Logger.warn("No handler is registered for expired timer with key %s, the timer is discarded.", timer.key);
+		}
+	}
+	
+	/**
+	 * Removes every handler and cancels every timer whose callback was defined by the given class loader, for example
+	 * because the mod it belongs to was reloaded. Timers scheduled under a key stay pending.
+	 *
+	 * @param classLoader The class loader of the handlers and callbacks to remove.
+	 */
+	public static void removeAll(ClassLoader classLoader) {
+		handlers.values().removeIf(handler -> handler.getClass().getClassLoader() == classLoader);
+		
+		List<Timer> cancelled = new ArrayList<>();
+		wheel.forEach(timer -> {
+			if (timer.callback != null && timer.callback.getClass().getClassLoader() == classLoader) {
+				cancelled.add(timer);
+			}
+		});
+		cancelled.forEach(Timer::cancel);
+	}
+	
+	/**
+	 * Removes every handler and discards every timer, for example when a game is created or loaded.
+	 */
+	public static void clear() {
+		handlers.clear();
+		wheel = new TimerWheel(0);
+		time = 0;
+	}
+	
+	/**
+	 * Writes every pending timer scheduled under a key, with the time it has left.
+	 *
+	 * @param file The save file to write to.
+	 */
+	public static void save(FilePutter file) {
+		List<SavedTimer> timers = snapshot();
+		file.i(timers.size());
+		
+		for (SavedTimer timer : timers) {
+			file.chars(timer.key);
+			file.l(timer.remaining);
+			file.l(timer.payload);
+		}
+	}
+	
+	/**
+	 * Reads the timers written by {@link #save(FilePutter)}, replacing every pending timer scheduled under a key.
+	 *
+	 * @param file The save file to read from.
+	 *
+	 * @throws IOException If the timers could not be read.
+	 */
+	public static void load(FileGetter file) throws IOException {
+		int count = file.i();
+		List<SavedTimer> timers = new ArrayList<>(count);
+		
+		for (int i = 0; i < count; i++) {
+			String key = file.chars();
+			long remaining = file.l();
+			long payload = file.l();
+			timers.add(new SavedTimer(key, remaining, payload));
+		}
+		
+		restore(timers);
+	}
+	
+	/**
+	 * @return every pending timer scheduled under a key, with the number of ticks it has left.
+	 */
+	static List<SavedTimer> snapshot() {
+		List<SavedTimer> timers = new ArrayList<>();
+		wheel.forEach(timer -> {
+			if (timer.isPersistent()) {
+				timers.add(new SavedTimer(timer.key, timer.deadline - wheel.getNow(), timer.payload));
+			}
+		});
+		return timers;
+	}
+	
+	/**
+	 * Replaces every pending timer scheduled under a key with the given timers.
+	 */
+	static void restore(List<SavedTimer> timers) {
+		List<Timer> previous = new ArrayList<>();
+		wheel.forEach(timer -> {
+			if (timer.isPersistent()) {
+				previous.add(timer);
+			}
+		});
+		previous.forEach(Timer::cancel);
+		
+		for (SavedTimer timer : timers) {
+			wheel.schedule(new Timer(timer.key, timer.payload, null), wheel.getNow() + timer.remaining);
+		}
+	}
+	
+	/**
+	 * A timer scheduled under a key, as it is written to a save.
+	 */
+	static final class SavedTimer {
+		final String key;
+		final long remaining;
+		final long payload;
+		
+		SavedTimer(String key, long remaining, long payload) {
+			this.key = key;
+			this.remaining = remaining;
+			this.payload = payload;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel. The first level has a slot for every tick of the next {@value #SLOT_COUNT} ticks, and
+ * every following level has a slot for every rotation of the level below it. A timer is kept in the slot of its
+ * deadline on the lowest level that reaches it, and is moved down a level whenever the level below completes a
+ * rotation, until it lands in the first level and expires. Deadlines beyond the highest level wait in an overflow list.
+ *
+ * @implNote Every slot is a doubly linked list, so adding and cancelling a timer takes constant time. Advancing the
+ * wheel visits every tick passed while the first level holds timers, and otherwise skips ahead to the next rotation of
+ * the lowest level that does, so its cost depends on the timers that are moved and expire rather than on the time
+ * passed.
+ */
+final class TimerWheel {
+	private static final int LEVEL_BITS = 8;
+	private static final int SLOT_COUNT = 1 << LEVEL_BITS;
+	private static final int SLOT_MASK = SLOT_COUNT - 1;
+	private static final int LEVEL_COUNT = 4;
+	
+	private final Timer[][] slots;
+	private final Timer overflow;
+	private final int[] levelSizes;
+	private long now;
+	private int size;
+	
+	/**
+	 * @param now The tick the wheel starts at.
+	 */
+	TimerWheel(long now) {
+		this.slots = new Timer[LEVEL_COUNT][SLOT_COUNT];
+		this.overflow = createSentinel();
+		this.levelSizes = new int[LEVEL_COUNT + 1];
+		this.now = now;
+		this.size = 0;
+		
+		for (Timer[] level : slots) {
+			for (int i = 0; i < SLOT_COUNT; i++) {
+				level[i] = createSentinel();
+			}
+		}
+	}
+	
+	private static Timer createSentinel() {
+		Timer sentinel = new Timer(null, 0, null);
+		sentinel.previous = sentinel;
+		sentinel.next = sentinel;
+		return sentinel;
+	}
+	
+	/**
+	 * @return the tick the wheel was last advanced to.
+	 */
+	long getNow() {
+		return now;
+	}
+	
+	/**
+	 * @return the number of pending timers.
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Schedules the given timer to expire at the given tick, or at the next tick if that has passed already.
+	 */
+	void schedule(Timer timer, long deadline) {
+		timer.deadline = Math.max(deadline, now + 1);
+		timer.wheel = this;
+		size++;
+		place(timer);
+	}
+	
+	void cancel(Timer timer) {
+		unlink(timer);
+		timer.wheel = null;
+		size--;
+	}
+	
+	/**
+	 * Advances the wheel and collects every timer whose deadline has been reached, in the order of their deadlines.
+	 *
+	 * @param target The tick to advance to.
+	 * @param due    The collection the expired timers are added to.
+	 */
+	void advance(long target, Collection<Timer> due) {
+		while (now < target) {
+			if (size == 0) {
+				now = target;
+				return;
+			}
+			
+			// Skips the ticks before the next rotation of the lowest level holding timers, at which they move down.
+			int lowestLevel = 0;
+			
+			while (levelSizes[lowestLevel] == 0) {
+				lowestLevel++;
+			}
+			
+			if (lowestLevel > 0) {
+				now = Math.min(target - 1, now | (1L << (lowestLevel * LEVEL_BITS)) - 1);
+			}
+			
+			now++;
+			int index = (int) (now & SLOT_MASK);
+			
+			if (index == 0) {
+				cascade(1);
+			}
+			
+			Timer sentinel = slots[0][index];
+			
+			while (sentinel.next != sentinel) {
+				Timer timer = sentinel.next;
+				unlink(timer);
+				timer.wheel = null;
+				size--;
+				due.add(timer);
+			}
+		}
+	}
+	
+	/**
+	 * @param action The action to perform for every pending timer.
+	 */
+	void forEach(Consumer<Timer> action) {
+		for (Timer[] level : slots) {
+			for (Timer sentinel : level) {
+				forEach(sentinel, action);
+			}
+		}
+		
+		forEach(overflow, action);
+	}
+	
+	private static void forEach(Timer sentinel, Consumer<Timer> action) {
+		for (Timer timer = sentinel.next; timer != sentinel; timer = timer.next) {
+			action.accept(timer);
+		}
+	}
+	
+	/**
+	 * Moves the timers of the current slot of the given level down, after the level below it completed a rotation.
+	 */
+	private void cascade(int level) {
+		Timer sentinel;
+		
+		if (level == LEVEL_COUNT) {
+			sentinel = overflow;
+		} else {
+			int index = (int) ((now >>> (level * LEVEL_BITS)) & SLOT_MASK);
+			sentinel = slots[level][index];
+			
+			if (index == 0) {
+				cascade(level + 1);
+			}
+		}
+		
+		Timer timer = sentinel.next;
+		sentinel.previous = sentinel;
+		sentinel.next = sentinel;
+		
+		while (timer != sentinel) {
+			Timer next = timer.next;
+			levelSizes[timer.level]--;
+			place(timer);
+			timer = next;
+		}
+	}
+	
+	private void place(Timer timer) {
+		long delta = timer.deadline - now;
+		Timer sentinel = overflow;
+		timer.level = LEVEL_COUNT;
+		
+		for (int level = 0; level < LEVEL_COUNT; level++) {
+			if (delta < 1L << ((level + 1) * LEVEL_BITS)) {
+				sentinel = slots[level][(int) ((timer.deadline >>> (level * LEVEL_BITS)) & SLOT_MASK)];
+				timer.level = level;
+				break;
+			}
+		}
+		
+		levelSizes[timer.level]++;
+		timer.previous = sentinel.previous;
+		timer.next = sentinel;
+		sentinel.previous.next = timer;
+		sentinel.previous = timer;
+	}
+	
+	private void unlink(Timer timer) {
+		levelSizes[timer.level]--;
+		timer.previous.next = timer.next;
+		timer.next.previous = timer.previous;
+		timer.previous = null;
+		timer.next = null;
+	}
+}
@@ -4,59 +4,227 @@
 
 package org.porcupine.script;
 
+import org.jetbrains.annotations.Nullable;
+import org.porcupine.diagnostics.AllocationProfiler;
+import org.porcupine.diagnostics.ModuleCallback;
+import org.porcupine.diagnostics.ModuleProfiler;
 import org.porcupine.events.*;
 import org.porcupine.modules.*;
+import org.porcupine.scheduling.TickScheduler;
+import org.porcupine.scheduling.TimerService;
 import org.porcupine.statistics.Statistics;
+import org.porcupine.utilities.FrameworkSettings;
 import org.porcupine.utilities.Logger;
+import org.porcupine.utilities.RandomService;
 import script.SCRIPT;
-import settlement.room.main.RoomBlueprintIns;
-import settlement.room.main.RoomInstance;
 import snake2d.Renderer;
 import snake2d.util.file.FileGetter;
 import snake2d.util.file.FilePutter;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.IOException;
+import java.util.*;
 
 @SuppressWarnings("MismatchedQueryAndUpdateOfCollection")
 public class Instance implements SCRIPT.SCRIPT_INSTANCE {
+	private static final int SAVE_MAGIC = 0x50524350;
+	private static final int SAVE_FORMAT_VERSION = 1;
+	private static final int ACTIVATION_CHECK_INTERVAL = 30;
+	
+	private final List<AggregateModule> modules;
 	private final Collection<IScriptEntity> scriptEntities;
-	private final Collection<ITickCapable> tickCapables;
+	private final TickScheduler tickScheduler;
 	private final Collection<IRenderCapable> renderCapables;
 	private final Collection<ISerializable> serializables;
 	private final Collection<IGlobalEvent> globalEvents;
+	private final GlobalEventScheduler globalEventScheduler;
 	private final Collection<IRoomEvent> roomEvents;
+	private final RoomEventDispatcher roomEventDispatcher;
+	private final Collection<LazyModuleDescriptor> lazyModules;
+	private final List<LazyModuleDescriptor> activatedModules;
+	private final @Nullable HotReloadWatcher hotReloadWatcher;
+	private int updatesSinceActivationCheck;
 	
 	public Instance() {
+		RoomIndex.clear();
+		EventBus.clear();
+		TimerService.clear();
+		RandomService.clear();
+		
+		this.modules = new ArrayList<>();
 		this.scriptEntities = new ArrayList<>();
-		this.tickCapables = new ArrayList<>();
+		this.tickScheduler = new TickScheduler();
 		this.renderCapables = new ArrayList<>();
 		this.serializables = new ArrayList<>();
 		this.globalEvents = EventLoader.getGlobalEvents();
+		this.globalEventScheduler = new GlobalEventScheduler(globalEvents);
 		this.roomEvents = EventLoader.getRoomEvents();
+		this.roomEventDispatcher = new RoomEventDispatcher(roomEvents);
+		this.lazyModules = new ArrayList<>(AggregateModuleLoader.getLazyModules());
+		this.activatedModules = new ArrayList<>();
+		this.updatesSinceActivationCheck = 0;
+		
+		for (AggregateModule module : AggregateModuleLoader.getModules()) {
+			addModule(module);
+		}
+		
+		ModuleInitializer.initialize(new ArrayList<>(modules), lazyModules);
+		
+		this.hotReloadWatcher = FrameworkSettings.isHotReloadEnabled() ? createHotReloadWatcher() : null;
+	}
+	
+	private static @Nullable HotReloadWatcher createHotReloadWatcher() {
+		try {
+			return new HotReloadWatcher(ModuleRegistry.getModuleInfos());
+		} catch (IOException e) {
+			Logger.error("IO exception while trying to watch the jars of the mods, hot reloading is disabled.");
+			return null;
+		}
+	}
+	
+	/**
+	 * Activates every lazy module whose activation conditions hold.
+	 */
+	private void activateDueModules() {
+		Iterator<LazyModuleDescriptor> iterator = lazyModules.iterator();
 		
-		Iterable<AggregateModule> modules = AggregateModuleLoader.getModules();
+		while (iterator.hasNext()) {
+			LazyModuleDescriptor descriptor = iterator.next();
+			
+			if (descriptor.isActivationDue()) {
+				iterator.remove();
+				activate(descriptor);
+			}
+		}
+	}
+	
+	private @Nullable AggregateModule activate(LazyModuleDescriptor descriptor) {
+		AggregateModule module = descriptor.instantiate();
+		
+		if (!initialize(Collections.singletonList(module))) {
+			return null;
+		}
+		
+		addModule(module);
+		activatedModules.add(descriptor);
+		
+		Logger.info("Activated module %s of mod %s.", descriptor.getModuleClass().getName(), descriptor.getModInfo().name);
+		return module;
+	}
+	
+	/**
+	 * Initializes modules that are added while the game is running, after the modules that are already active.
+	 *
+	 * @return false if the dependencies of the modules are not met, in which case they are not initialized.
+	 */
+	private boolean initialize(List<AggregateModule> addedModules) {
+		try {
+			ModuleInitializer.initialize(addedModules, modules, lazyModules);
+			return true;
+		} catch (InvalidAggregateException e) {
+			Logger.error(e.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Replaces the modules and events of the given mod by the ones in its current jars. The state every
+	 * {@link ISerializable} module writes when the game is saved is read by the new instance of its class once it has
+	 * been initialized, and lazy modules that were active are activated again right away.
+	 *
+	 * @implNote Only the classes of the reloaded mod are replaced. Other mods that link against its classes keep using
+	 * the classes they already resolved, which belong to the previous class loader, or fail with a
+	 * {@link NoClassDefFoundError} once they resolve a class that the closed loader had not loaded yet.
+	 */
+	private void reloadMod(AggregateModuleInfo info) {
+		Map<String, byte[]> states = new HashMap<>();
+		Set<String> activeLazyModules = new HashSet<>();
+		
+		for (AggregateModule module : new ArrayList<>(modules)) {
+			if (module.modInfo != info) {
+				continue;
+			}
+			
+			if (module.serializable != null) {
+				byte[] state = ModuleState.capture(module.serializable);
+				
+				if (state != null) {
+					states.put(module.serializable.getClass().getName(), state);
+				}
+			}
+			
+			removeModule(module);
+		}
+		
+		for (LazyModuleDescriptor descriptor : new ArrayList<>(activatedModules)) {
+			if (descriptor.getModInfo() == info) {
+				activeLazyModules.add(descriptor.getModuleClass().getName());
+				activatedModules.remove(descriptor);
+			}
+		}
+		
+		lazyModules.removeIf(descriptor -> descriptor.getModInfo() == info);
+		
+		ClassLoader previousLoader = ModuleRegistry.reload(info);
+		hotReloadWatcher.trackUnloaded(info, previousLoader);
+		RoomIndex.removeListeners(previousLoader);
+		EventBus.unsubscribeAll(previousLoader);
+		TimerService.removeAll(previousLoader);
+		EventLoader.reload(info);
+		globalEventScheduler.reset(globalEvents);
+		roomEventDispatcher.reset(roomEvents);
+		
+		List<AggregateModule> reloadedModules = AggregateModuleLoader.reload(info);
+		List<LazyModuleDescriptor> reactivatedModules = new ArrayList<>();
+		
+		for (LazyModuleDescriptor descriptor : AggregateModuleLoader.getLazyModules()) {
+			if (descriptor.getModInfo() != info) {
+				continue;
+			}
+			
+			if (activeLazyModules.contains(descriptor.getModuleClass().getName())) {
+				reactivatedModules.add(descriptor);
+			} else {
+				lazyModules.add(descriptor);
+			}
+		}
 		
-		for (AggregateModule module : modules) {
-			processModule(module);
+		if (initialize(reloadedModules)) {
+			for (AggregateModule module : reloadedModules) {
+				addModule(module);
+				restoreState(module, states);
+			}
 		}
 		
-		for (IScriptEntity entity : scriptEntities) {
-			entity.onInitializeEarly();
+		for (LazyModuleDescriptor descriptor : reactivatedModules) {
+			AggregateModule module = activate(descriptor);
+			
+			if (module != null) {
+				restoreState(module, states);
+			}
 		}
 		
-		for (IScriptEntity entity : scriptEntities) {
-			entity.onInitializeLate();
+		Logger.info("Reloaded the modules of mod %s.", info.name);
+	}
+	
+	private static void restoreState(AggregateModule module, Map<String, byte[]> states) {
+		if (module.serializable != null) {
+			byte[] state = states.get(module.serializable.getClass().getName());
+			
+			if (state != null) {
+				ModuleState.restore(module.serializable, state);
+			}
 		}
 	}
 	
-	private void processModule(AggregateModule module) {
+	private void addModule(AggregateModule module) {
+		modules.add(module);
+		
 		if (module.scriptEntity != null) {
 			scriptEntities.add(module.scriptEntity);
 		}
 		
 		if (module.tickCapable != null) {
-			tickCapables.add(module.tickCapable);
+			tickScheduler.add(module.tickCapable);
 		}
 		
 		if (module.renderCapable != null) {
@@ -68,35 +236,44 @@ public class Instance implements SCRIPT.SCRIPT_INSTANCE {
 		}
 	}
 	
+	private void removeModule(AggregateModule module) {
+		modules.removeIf(candidate -> candidate == module);
+		scriptEntities.remove(module.scriptEntity);
+		tickScheduler.remove(module.tickCapable);
+		renderCapables.remove(module.renderCapable);
+		serializables.remove(module.serializable);
+	}
+	
 	/**
 	 * @param ds The time in seconds since the last game tick while the game was running.
 	 *
 	 * @apiNote delta is zero when the game is paused.
 	 */
-	@SuppressWarnings("UnsecureRandomNumberGeneration")
 	@Override
 	public void update(double ds) {
+		if (hotReloadWatcher != null) {
+			hotReloadWatcher.pollChangedMods().forEach(this::reloadMod);
+			hotReloadWatcher.checkUnloadedClassLoaders();
+		}
+		
 		Statistics.refreshAllStats();
+		RoomIndex.update();
 		
-		for (ITickCapable tickCapable : tickCapables) {
-			tickCapable.onTick(ds);
+		if (!lazyModules.isEmpty() && ++updatesSinceActivationCheck >= ACTIVATION_CHECK_INTERVAL) {
+			updatesSinceActivationCheck = 0;
+			activateDueModules();
 		}
 		
-		for (IGlobalEvent globalEvent : globalEvents) {
-			float chance = globalEvent.chancePerSecond();
-			
-			if (chance > 0 && Math.random() < chance * ds) {
-				globalEvent.onEvent();
-			}
-		}
+		tickScheduler.update(ds);
+		ModuleProfiler.logIfDue();
+		AllocationProfiler.logIfDue();
 		
-		for (IRoomEvent event : roomEvents) {
-			RoomBlueprintIns<?> blueprint = event.getRoomType();
-			for (int ri = 0; ri < blueprint.instancesSize(); ri++) {
-				RoomInstance instance = blueprint.getInstance(ri);
-				event.onEvent(instance);
-			}
-		}
+		globalEventScheduler.update(ds);
+		
+		roomEventDispatcher.update(ds);
+		
+		TimerService.update(ds);
+		EventBus.deliver();
 	}
 	
 	@Override
@@ -104,7 +281,11 @@ public class Instance implements SCRIPT.SCRIPT_INSTANCE {
 		SCRIPT.SCRIPT_INSTANCE.super.render(r, ds);
 		
 		for (IRenderCapable renderCapable : renderCapables) {
+			long allocationStart = AllocationProfiler.start();
+			long start = ModuleProfiler.start();
 			renderCapable.onRender(r, ds);
+			ModuleProfiler.stop(renderCapable, ModuleCallback.RENDER, start);
+			AllocationProfiler.stop(renderCapable, ModuleCallback.RENDER, allocationStart);
 		}
 	}
 	
@@ -112,8 +293,12 @@ public class Instance implements SCRIPT.SCRIPT_INSTANCE {
 	public void save(FilePutter file) {
 		Logger.info("Saving Porcupine framework state information...");
 		
+		saveFrameworkState(file);
+		
 		for (ISerializable serializable : serializables) {
+			long start = ModuleProfiler.start();
 			serializable.onSerialize(file);
+			ModuleProfiler.stop(serializable, ModuleCallback.SAVE, start);
 		}
 	}
 	
@@ -121,8 +306,80 @@ public class Instance implements SCRIPT.SCRIPT_INSTANCE {
 	public void load(FileGetter file) {
 		Logger.info("Loading Porcupine framework state information...");
 		
+		try {
+			loadFrameworkState(file);
+		} catch (IOException e) {
+			Logger.error("The save contains Porcupine framework state of an unknown format, skipping module state.");
+			return;
+		}
+		
 		for (ISerializable serializable : serializables) {
+			long start = ModuleProfiler.start();
 			serializable.onDeserialize(file);
+			ModuleProfiler.stop(serializable, ModuleCallback.LOAD, start);
 		}
 	}
+	
+	/**
+	 * Writes the state of the framework itself, which precedes the state of the modules in a save.
+	 */
+	private void saveFrameworkState(FilePutter file) {
+		file.i(SAVE_MAGIC);
+		file.i(SAVE_FORMAT_VERSION);
+		file.i(activatedModules.size());
+		
+		for (LazyModuleDescriptor descriptor : activatedModules) {
+			file.chars(descriptor.getModuleClass().getName());
+		}
+		
+		TimerService.save(file);
+		RandomService.save(file);
+	}
+	
+	/**
+	 * Reads the state written by {@link #saveFrameworkState(FilePutter)}. Lazy modules that were active when the game
+	 * was saved are activated right away, so that the state of every module is read by the module that wrote it.
+	 * Saves written before the framework stored any state of its own start with the state of the first module, in
+	 * which case the file is rewound and only the state of the modules is read.
+	 */
+	private void loadFrameworkState(FileGetter file) throws IOException {
+		int start = file.getPosition();
+		
+		if (file.i() != SAVE_MAGIC) {
+			file.setPosition(start);
+			Logger.info("The save does not contain Porcupine framework state, reading module state only.");
+			return;
+		}
+		
+		if (file.i() != SAVE_FORMAT_VERSION) {
+			throw new IOException("Unknown Porcupine framework state format.");
+		}
+		
+		int activatedCount = file.i();
+		
+		for (int i = 0; i < activatedCount; i++) {
+			activateSaved(file.chars());
+		}
+		
+		TimerService.load(file);
+		RandomService.load(file);
+		
+		// The pending occurrences of the global events were drawn before the streams were restored, so draw them again.
+		globalEventScheduler.reset(globalEvents);
+	}
+	
+	private void activateSaved(String className) {
+		for (LazyModuleDescriptor descriptor : new ArrayList<>(lazyModules)) {
+			if (descriptor.getModuleClass().getName().equals(className)) {
+				lazyModules.remove(descriptor);
+				activate(descriptor);
+				return;
+			}
+		}
+		
+		Logger.warn(
+				"The save contains state of unknown module %s, the state of the modules may be read incorrectly.",
+				className
+		);
+	}
 }
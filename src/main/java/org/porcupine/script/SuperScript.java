@@ -4,6 +4,7 @@
 
 package org.porcupine.script;
 
+import org.porcupine.diagnostics.BootProfiler;
 import org.porcupine.utilities.Logger;
 import script.SCRIPT;
 
@@ -25,8 +26,17 @@ public class SuperScript implements SCRIPT {
 
     @Override
     public SCRIPT_INSTANCE initAfterGameCreated() {
+        BootProfiler.begin();
+        Instance instance;
+
+        try {
+            instance = new Instance();
+        } finally {
+            BootProfiler.finish();
+        }
+
         Logger.info("Porcupine framework initialized.");
-        return new Instance();
+        return instance;
     }
 
 
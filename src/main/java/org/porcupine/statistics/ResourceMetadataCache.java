@@ -15,7 +15,10 @@ import java.util.Set;
 
 /**
  * @author Milan Dierick
+ * @deprecated {@link StockpileStatistics} no longer keeps its metadata in this cache. Use the accessors of
+ * {@link StockpileStatistics} instead.
  */
+@Deprecated
 public class ResourceMetadataCache implements Map<RESOURCE, ResourceMetadata> {
 	private final Map<RESOURCE, ResourceMetadata> cache = new HashMap<>();
 	
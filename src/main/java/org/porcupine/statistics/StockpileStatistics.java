@@ -7,36 +7,138 @@ package org.porcupine.statistics;
 import game.faction.FACTIONS;
 import init.resources.RESOURCE;
 import init.resources.RESOURCES;
+import org.jetbrains.annotations.Nullable;
 import settlement.main.SETT;
 import settlement.room.infra.stockpile.StockpileTally;
 
 /**
  * @author Milan Dierick
+ * @implNote The statistics of every resource are kept in arrays indexed by {@link RESOURCE#index()}, which are
+ * updated in place, so refreshing the statistics on every update does not allocate. Reading them through the primitive
+ * accessors does not allocate either, while {@link #get(RESOURCE)} creates a snapshot of the metadata on every call.
  */
 public class StockpileStatistics implements IStats {
-	private final ResourceMetadataCache cache = new ResourceMetadataCache();
+	private int[] buyPrices = new int[0];
+	private int[] sellPrices = new int[0];
+	private int[] stockpiles = new int[0];
+	private RESOURCE[] resources = new RESOURCE[0];
 	
 	@Override
 	public void refresh() {
-		cache.clear();
+		int resourceCount = RESOURCES.ALL().size();
+		
+		if (resources.length != resourceCount) {
+			RESOURCE[] resources = new RESOURCE[resourceCount];
+			
+			for (int i = 0; i < resourceCount; i++) {
+				RESOURCE resource = RESOURCES.ALL().get(i);
+				resources[resource.index()] = resource;
+			}
+			
+			resize(resources);
+		}
 		
 		StockpileTally tally = SETT.ROOMS().STOCKPILE.tally();
 		
-		for (RESOURCE resource : RESOURCES.ALL()) {
-			int buyPrice = FACTIONS.player().credits().pricesBuy.get(resource);
-			int sellPrice = FACTIONS.player().credits().pricesSell.get(resource);
-			int stockpile = tally.amountTotal(resource);
+		for (int i = 0; i < resourceCount; i++) {
+			RESOURCE resource = RESOURCES.ALL().get(i);
 			
-			cache.put(resource, new ResourceMetadata(resource, buyPrice, sellPrice, stockpile));
+			record(
+					resource.index(),
+					FACTIONS.player().credits().pricesBuy.get(resource),
+					FACTIONS.player().credits().pricesSell.get(resource),
+					tally.amountTotal(resource)
+			);
 		}
 	}
 	
+	/**
+	 * Replaces the arrays with ones for the given resources, indexed by {@link RESOURCE#index()}.
+	 */
+	void resize(RESOURCE[] resources) {
+		this.buyPrices = new int[resources.length];
+		this.sellPrices = new int[resources.length];
+		this.stockpiles = new int[resources.length];
+		this.resources = resources;
+	}
+	
+	/**
+	 * Stores the statistics of the resource with the given index.
+	 */
+	void record(int index, int buyPrice, int sellPrice, int stockpile) {
+		buyPrices[index] = buyPrice;
+		sellPrices[index] = sellPrice;
+		stockpiles[index] = stockpile;
+	}
+	
+	/**
+	 * @param resource The resource to get the buy price of.
+	 *
+	 * @return the buy price of the given resource as of the last refresh, or zero before the first refresh.
+	 */
+	public int getBuyPrice(RESOURCE resource) {
+		return getBuyPrice(resource.index());
+	}
+	
+	/**
+	 * @return the buy price of the resource with the given index, or zero before the first refresh.
+	 */
+	int getBuyPrice(int index) {
+		return index < buyPrices.length ? buyPrices[index] : 0;
+	}
+	
+	/**
+	 * @param resource The resource to get the sell price of.
+	 *
+	 * @return the sell price of the given resource as of the last refresh, or zero before the first refresh.
+	 */
+	public int getSellPrice(RESOURCE resource) {
+		return getSellPrice(resource.index());
+	}
+	
+	/**
+	 * @return the sell price of the resource with the given index, or zero before the first refresh.
+	 */
+	int getSellPrice(int index) {
+		return index < sellPrices.length ? sellPrices[index] : 0;
+	}
+	
+	/**
+	 * @param resource The resource to get the stockpiled amount of.
+	 *
+	 * @return the amount of the given resource in stockpile as of the last refresh, or zero before the first refresh.
+	 */
+	public int getStockpile(RESOURCE resource) {
+		return getStockpile(resource.index());
+	}
+	
+	/**
+	 * @return the stockpiled amount of the resource with the given index, or zero before the first refresh.
+	 */
+	int getStockpile(int index) {
+		return index < stockpiles.length ? stockpiles[index] : 0;
+	}
+	
 	/**
 	 * @param key The resource to get the metadata for.
 	 *
-	 * @return the metadata for the given resource.
+	 * @return a snapshot of the metadata for the given resource, or null before the first refresh.
+	 *
+	 * @apiNote The snapshot is not updated by later refreshes, and changing it does not change the statistics. Use the
+	 * primitive accessors to read the statistics on every update without allocating.
 	 */
-	public ResourceMetadata get(RESOURCE key) {
-		return cache.get(key);
+	public @Nullable ResourceMetadata get(RESOURCE key) {
+		return get(key.index());
+	}
+	
+	/**
+	 * @return a snapshot of the metadata of the resource with the given index, or null before the first refresh.
+	 */
+	@Nullable ResourceMetadata get(int index) {
+		if (index >= resources.length) {
+			return null;
+		}
+		
+		return new ResourceMetadata(resources[index], buyPrices[index], sellPrices[index], stockpiles[index]);
 	}
 }
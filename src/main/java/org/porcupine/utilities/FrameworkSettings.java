@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Framework-wide settings. Every setting is read from a system property, so it can be passed to the game with
+ * {@code -Dproperty=value} on the command line.
+ *
+ * @author Milan Dierick
+ */
+@SuppressWarnings("AccessOfSystemProperties")
+public final class FrameworkSettings {
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private FrameworkSettings() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	/**
+	 * @return true if mod jars should be scanned and modules constructed concurrently during startup, false by default.
+	 *
+	 * @apiNote Only enable this if the constructors of all modules can safely run off the main thread.
+	 */
+	public static boolean isParallelStartupEnabled() {
+		return Boolean.getBoolean("porcupine.startup.parallel");
+	}
+	
+	/**
+	 * @return the maximum number of threads used during a parallel startup, the number of available processors by
+	 * default.
+	 */
+	public static int getStartupParallelism() {
+		int parallelism = Integer.getInteger("porcupine.startup.parallelism", Runtime.getRuntime().availableProcessors());
+		return Math.max(1, parallelism);
+	}
+	
+	/**
+	 * @return true if the modules of a mod should be reloaded whenever the jars of the mod change, false by default.
+	 *
+	 * @apiNote Meant for developing modules. Only the state a module exposes through its fields survives a reload.
+	 */
+	public static boolean isHotReloadEnabled() {
+		return Boolean.getBoolean("porcupine.hotreload");
+	}
+	
+	/**
+	 * @return the time modules may spend ticking in a single game update in nanoseconds, or zero if every module is
+	 * ticked whenever it is due, which is the default. Set in microseconds through {@code porcupine.tick.budget}.
+	 *
+	 * @see org.porcupine.scheduling.Deferrable
+	 */
+	public static long getTickBudgetNanos() {
+		return TimeUnit.MICROSECONDS.toNanos(Math.max(0, Long.getLong("porcupine.tick.budget", 0)));
+	}
+	
+	/**
+	 * @return the number of threads ticking modules marked {@link org.porcupine.scheduling.ConcurrentTick}, one less
+	 * than the number of available processors by default. With one thread, every module is ticked on the main thread.
+	 */
+	public static int getTickParallelism() {
+		int parallelism = Integer.getInteger("porcupine.tick.parallelism", Runtime.getRuntime().availableProcessors() - 1);
+		return Math.max(1, parallelism);
+	}
+	
+	/**
+	 * @return the time a single tick of a module may take before the watchdog reports it in nanoseconds, or zero if
+	 * ticks are not watched, which is the default. Set in microseconds through {@code porcupine.watchdog.budget}.
+	 */
+	public static long getWatchdogBudgetNanos() {
+		return TimeUnit.MICROSECONDS.toNanos(Math.max(0, Long.getLong("porcupine.watchdog.budget", 0)));
+	}
+	
+	/**
+	 * @return true if the watchdog should tick modules less often while their average tick exceeds its budget, false by
+	 * default.
+	 */
+	public static boolean isWatchdogDemotionEnabled() {
+		return Boolean.getBoolean("porcupine.watchdog.demote");
+	}
+	
+	/**
+	 * @return the number of ticks exceeding the budget after which the watchdog stops ticking a module, or zero if
+	 * modules are never quarantined, which is the default.
+	 */
+	public static int getWatchdogQuarantineOffences() {
+		return Math.max(0, Integer.getInteger("porcupine.watchdog.quarantine", 0));
+	}
+	
+	/**
+	 * @return true if the callbacks of every module should be measured by the
+	 * {@link org.porcupine.diagnostics.ModuleProfiler}, false by default.
+	 */
+	public static boolean isProfilerEnabled() {
+		return Boolean.getBoolean("porcupine.profiler");
+	}
+	
+	/**
+	 * @return the time between two logs of the module profiles in nanoseconds, one minute by default. Set in seconds
+	 * through {@code porcupine.profiler.interval}.
+	 */
+	public static long getProfilerLogIntervalNanos() {
+		return TimeUnit.SECONDS.toNanos(Math.max(1, Long.getLong("porcupine.profiler.interval", 60)));
+	}
+	
+	/**
+	 * @return true if the memory allocated by the callbacks of every module should be measured by the
+	 * {@link org.porcupine.diagnostics.AllocationProfiler}, false by default.
+	 */
+	public static boolean isAllocationProfilerEnabled() {
+		return Boolean.getBoolean("porcupine.profiler.allocations");
+	}
+	
+	/**
+	 * @return the number of callbacks per measured callback when allocations are profiled, sixteen by default.
+	 */
+	public static int getAllocationSampleInterval() {
+		return Math.max(1, Integer.getInteger("porcupine.profiler.allocations.sample", 16));
+	}
+	
+	/**
+	 * @return the seed of the random numbers of a new game, or null if a random seed should be used, which is the
+	 * default. Set through {@code porcupine.seed} to reproduce the events of a game.
+	 */
+	public static @Nullable Long getRandomSeed() {
+		return Long.getLong("porcupine.seed");
+	}
+	
+	/**
+	 * @return the file the boot report is written to, {@code .porcupine/boot-report.json} in the home directory of the
+	 * user by default.
+	 */
+	public static Path getBootReportPath() {
+		String path = System.getProperty("porcupine.boot.report");
+		
+		if (path != null) {
+			return Paths.get(path);
+		}
+		
+		return Paths.get(System.getProperty("user.home"), ".porcupine", "boot-report.json");
+	}
+}
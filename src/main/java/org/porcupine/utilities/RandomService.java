@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import snake2d.util.file.FileGetter;
+import snake2d.util.file.FilePutter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out a {@link RandomStream} to every module and event, all derived from the seed of the game. The state of
+ * every stream is saved with the game, so a stream of a loaded game continues with the same random numbers it would
+ * have drawn had the game not been saved, and a game started with the same seed draws the same numbers.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * RandomStream random = RandomService.getStream(this);
+ * if (random.nextDouble() < chance) {
+ *     // ...
+ * }
+ * }</pre>
+ *
+ * @author Milan Dierick
+ * @implNote Streams are keyed by the class name of their owner, so every instance of a class shares a single stream,
+ * and the stream of a module survives a hot reload. The seed of a new game is taken from
+ * {@link FrameworkSettings#getRandomSeed()}, or chosen at random if it is not set. Streams can be requested from any
+ * thread, but a stream itself is only used from the thread of its owner. The seed and the streams are only cleared,
+ * saved and loaded on the main thread.
+ */
+public final class RandomService {
+	private static final Map<String, RandomStream> streams = new ConcurrentHashMap<>();
+	private static volatile long seed = createSeed();
+	
+	/**
+	 * @apiNote Setting this constructor to private prevents the class from being erroneously instantiated.
+	 */
+	private RandomService() {
+		throw new AssertionError("This class cannot be instantiated.");
+	}
+	
+	private static long createSeed() {
+		Long configuredSeed = FrameworkSettings.getRandomSeed();
+		return configuredSeed != null ? configuredSeed : RandomStream.mix(System.nanoTime() ^ System.currentTimeMillis());
+	}
+	
+	/**
+	 * @param owner The module or event to get the stream of.
+	 *
+	 * @return the stream of the class of the given owner.
+	 */
+	public static RandomStream getStream(Object owner) {
+		return getStream(owner.getClass().getName());
+	}
+	
+	/**
+	 * @param key The key of the stream, which has to be unique across mods.
+	 *
+	 * @return the stream with the given key.
+	 */
+	public static RandomStream getStream(String key) {
+		return streams.computeIfAbsent(key, RandomService::createStream);
+	}
+	
+	private static RandomStream createStream(String key) {
+		return new RandomStream(deriveState(key));
+	}
+	
+	private static long deriveState(String key) {
+		// A 64-bit hash of the key, so that keys sharing a 32-bit hash still get unrelated streams.
+		long hash = 0;
+		
+		for (int i = 0; i < key.length(); i++) {
+			hash = RandomStream.mix(hash ^ key.charAt(i));
+		}
+		
+		return RandomStream.mix(seed ^ hash);
+	}
+	
+	/**
+	 * @return the seed every stream is derived from.
+	 */
+	public static long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Forgets every stream and picks the seed of a new game, for example when a game is created or loaded.
+	 */
+	public static void clear() {
+		streams.clear();
+		seed = createSeed();
+	}
+	
+	/**
+	 * Writes the seed and the state of every stream.
+	 *
+	 * @param file The save file to write to.
+	 */
+	public static void save(FilePutter file) {
+		Map<String, Long> states = snapshot();
+		file.l(seed);
+		file.i(states.size());
+		
+		for (Map.Entry<String, Long> entry : states.entrySet()) {
+			file.chars(entry.getKey());
+			file.l(entry.getValue());
+		}
+	}
+	
+	/**
+	 * Reads the seed and streams written by {@link #save(FilePutter)}. Streams handed out before the game was loaded
+	 * continue from their saved state, or are derived from the saved seed if they were not saved.
+	 *
+	 * @param file The save file to read from.
+	 *
+	 * @throws IOException If the streams could not be read.
+	 */
+	public static void load(FileGetter file) throws IOException {
+		long savedSeed = file.l();
+		int count = file.i();
+		Map<String, Long> states = new LinkedHashMap<>();
+		
+		for (int i = 0; i < count; i++) {
+			String key = file.chars();
+			states.put(key, file.l());
+		}
+		
+		restore(savedSeed, states);
+	}
+	
+	/**
+	 * @return the state of every stream, by its key.
+	 */
+	static Map<String, Long> snapshot() {
+		Map<String, Long> states = new LinkedHashMap<>();
+		streams.forEach((key, stream) -> states.put(key, stream.getState()));
+		return states;
+	}
+	
+	/**
+	 * Replaces the seed and the state of every stream. Streams handed out before are kept, and continue from the given
+	 * state or are derived from the given seed.
+	 */
+	static void restore(long savedSeed, Map<String, Long> states) {
+		seed = savedSeed;
+		
+		for (Map.Entry<String, RandomStream> entry : streams.entrySet()) {
+			entry.getValue().setState(deriveState(entry.getKey()));
+		}
+		
+		for (Map.Entry<String, Long> entry : states.entrySet()) {
+			getStream(entry.getKey()).setState(entry.getValue());
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+/**
+ * A fast, seedable stream of pseudorandom numbers based on the SplitMix64 generator. The whole state of the stream is
+ * a single long, so it can be saved and restored exactly, and a stream with the same state always produces the same
+ * numbers.
+ *
+ * @author Milan Dierick
+ * @implNote A stream is not thread-safe. Every module and event gets its own stream from the {@link RandomService}, so
+ * streams are never shared between threads.
+ * @see <a href="https://doi.org/10.1145/2714064.2660195">Fast splittable pseudorandom number generators</a>
+ */
+public final class RandomStream {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	
+	private long state;
+	
+	/**
+	 * @param state The initial state of the stream.
+	 */
+	public RandomStream(long state) {
+		this.state = state;
+	}
+	
+	/**
+	 * @return a uniformly distributed long.
+	 */
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+	
+	/**
+	 * @return a uniformly distributed double between zero (inclusive) and one (exclusive).
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+	
+	/**
+	 * @param bound The upper bound (exclusive), which has to be positive.
+	 *
+	 * @return a uniformly distributed int between zero (inclusive) and the bound (exclusive).
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("The bound has to be positive.");
+		}
+		
+		int bits = (int) (nextLong() >>> 33);
+		int mask = bound - 1;
+		
+		if ((bound & mask) == 0) {
+			return (int) ((bound * (long) bits) >> 31);
+		}
+		
+		int value = bits % bound;
+		
+		// Rejects the values of the last, incomplete range of the bound, which would skew the distribution.
+		while (bits - value + mask < 0) {
+			bits = (int) (nextLong() >>> 33);
+			value = bits % bound;
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * @return the current state, which can be passed to {@link #setState(long)} to continue the stream.
+	 */
+	public long getState() {
+		return state;
+	}
+	
+	public void setState(long state) {
+		this.state = state;
+	}
+	
+	/**
+	 * @return the finalizer of SplitMix64, which turns every long into a well distributed long.
+	 */
+	static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
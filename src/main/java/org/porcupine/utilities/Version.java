@@ -4,7 +4,7 @@
 
 package org.porcupine.utilities;
 
-public class Version {
+public class Version implements Comparable<Version> {
 	private final int major;
 	private final int minor;
 	private final int patch;
@@ -57,6 +57,29 @@ public class Version {
 		return suffix;
 	}
 	
+	/**
+	 * Compares the major, minor and patch numbers of both versions, in that order. Versions that only differ in their
+	 * suffix are ordered by their suffix.
+	 */
+	@Override
+	public int compareTo(Version other) {
+		int result = Integer.compare(major, other.major);
+		
+		if (result == 0) {
+			result = Integer.compare(minor, other.minor);
+		}
+		
+		if (result == 0) {
+			result = Integer.compare(patch, other.patch);
+		}
+		
+		if (result == 0) {
+			result = suffix.compareTo(other.suffix);
+		}
+		
+		return result;
+	}
+	
 	@Override
 	public String toString() {
 		return major + "." + minor + "." + patch + "-" + suffix;
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A range of {@link Version}s, written in the notation Maven uses for version ranges:
+ *
+ * <ul>
+ *     <li>An empty string or {@code *} matches any version.</li>
+ *     <li>{@code 1.2} matches 1.2 and any later version.</li>
+ *     <li>{@code [1.2]} matches exactly 1.2.</li>
+ *     <li>{@code [1.0,2.0)} matches 1.0 up to, but not including, 2.0.</li>
+ *     <li>{@code (,2.0]} matches any version up to and including 2.0, {@code [1.0,)} any version from 1.0 on.</li>
+ * </ul>
+ */
+public final class VersionRange {
+	private final @Nullable Version lowerBound;
+	private final @Nullable Version upperBound;
+	private final boolean lowerInclusive;
+	private final boolean upperInclusive;
+	
+	public VersionRange(
+			@Nullable Version lowerBound,
+			boolean lowerInclusive,
+			@Nullable Version upperBound,
+			boolean upperInclusive
+	) {
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.lowerInclusive = lowerInclusive;
+		this.upperInclusive = upperInclusive;
+	}
+	
+	/**
+	 * @param range The range in the notation described in the documentation of this class.
+	 *
+	 * @return the parsed range.
+	 *
+	 * @throws IllegalArgumentException If the range is malformed.
+	 */
+	public static VersionRange parse(String range) {
+		String trimmed = range.trim();
+		
+		if (trimmed.isEmpty() || "*".equals(trimmed)) {
+			return new VersionRange(null, true, null, true);
+		}
+		
+		char first = trimmed.charAt(0);
+		char last = trimmed.charAt(trimmed.length() - 1);
+		
+		if (first != '[' && first != '(') {
+			return new VersionRange(parseVersion(trimmed), true, null, true);
+		}
+		
+		if (last != ']' && last != ')') {
+			throw new IllegalArgumentException("Invalid version range: " + range);
+		}
+		
+		String content = trimmed.substring(1, trimmed.length() - 1);
+		int separator = content.indexOf(',');
+		
+		if (separator < 0) {
+			if (first != '[' || last != ']') {
+				throw new IllegalArgumentException("Invalid version range: " + range);
+			}
+			
+			Version version = parseVersion(content);
+			return new VersionRange(version, true, version, true);
+		}
+		
+		String lower = content.substring(0, separator).trim();
+		String upper = content.substring(separator + 1).trim();
+		
+		return new VersionRange(
+				lower.isEmpty() ? null : parseVersion(lower),
+				first == '[',
+				upper.isEmpty() ? null : parseVersion(upper),
+				last == ']'
+		);
+	}
+	
+	private static Version parseVersion(String version) {
+		try {
+			return new Version(version.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid version: " + version, e);
+		}
+	}
+	
+	/**
+	 * @param version The version to test.
+	 *
+	 * @return true if the version lies within this range.
+	 */
+	public boolean contains(Version version) {
+		if (lowerBound != null) {
+			int result = version.compareTo(lowerBound);
+			
+			if (result < 0 || (result == 0 && !lowerInclusive)) {
+				return false;
+			}
+		}
+		
+		if (upperBound != null) {
+			int result = version.compareTo(upperBound);
+			
+			return result < 0 || (result == 0 && upperInclusive);
+		}
+		
+		return true;
+	}
+	
+	@Override
+	@NonNls
+	public String toString() {
+		if (lowerBound == null && upperBound == null) {
+			return "*";
+		}
+		
+		return (lowerInclusive ? "[" : "(") + (lowerBound != null ? lowerBound : "") + ',' + (upperBound != null ? upperBound : "") + (upperInclusive ? "]" : ")");
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class AllocationProfilerTest {
+	private static final int CALLBACK_COUNT = 20000;
+	private static final int SAMPLE_INTERVAL = 8;
+	private static final int ARRAY_LENGTH = 4096;
+	
+	@SuppressWarnings("unused")
+	private static volatile byte[] sink;
+	
+	@Test
+	void scaleSampledAllocations() {
+		Assumptions.assumeTrue(AllocationCounter.isSupported(), "Allocations cannot be measured on this JVM.");
+		
+		HeavyModule heavyModule = new HeavyModule();
+		LightModule lightModule = new LightModule();
+		
+		for (int i = 0; i < CALLBACK_COUNT; i++) {
+			long start = AllocationProfiler.start(SAMPLE_INTERVAL);
+			sink = new byte[ARRAY_LENGTH];
+			AllocationProfiler.stop(heavyModule, ModuleCallback.TICK, start, SAMPLE_INTERVAL);
+			
+			start = AllocationProfiler.start(SAMPLE_INTERVAL);
+			sink = new byte[ARRAY_LENGTH / 16];
+			AllocationProfiler.stop(lightModule, ModuleCallback.RENDER, start, SAMPLE_INTERVAL);
+		}
+		
+		ModuleProfile heavyProfile = ModuleProfiler.getProfile(HeavyModule.class);
+		ModuleProfile lightProfile = ModuleProfiler.getProfile(LightModule.class);
+		double expectedBytes = (double) CALLBACK_COUNT * ARRAY_LENGTH;
+		
+		Assertions.assertEquals(
+				expectedBytes,
+				heavyProfile.getAllocatedBytes(ModuleCallback.TICK),
+				expectedBytes * 0.25,
+				"Sampled allocations are not scaled to the allocations of every callback."
+		);
+		Assertions.assertEquals(0, heavyProfile.getAllocatedBytes(ModuleCallback.RENDER), "Allocations are recorded for the wrong callback.");
+		Assertions.assertEquals(
+				expectedBytes / 16,
+				lightProfile.getAllocatedBytes(ModuleCallback.RENDER),
+				expectedBytes / 16 * 0.25,
+				"Sampled allocations are not scaled to the allocations of every callback."
+		);
+		
+		List<ModuleProfile> ranking = AllocationProfiler.getRanking();
+		
+		Assertions.assertTrue(
+				ranking.indexOf(heavyProfile) >= 0 && ranking.indexOf(heavyProfile) < ranking.indexOf(lightProfile),
+				"Modules are not ranked by their allocation rate."
+		);
+	}
+	
+	private static final class HeavyModule {
+	}
+	
+	private static final class LightModule {
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.diagnostics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+	
+	@Test
+	void bucketUpperBound() {
+		for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.bucketIndex(value);
+			long upperBound = LatencyHistogram.bucketUpperBound(index);
+			
+			Assertions.assertTrue(upperBound >= value, "Upper bound is below the value " + value + '.');
+			Assertions.assertTrue(upperBound - value <= value / 8, "Upper bound is too far from the value " + value + '.');
+			
+			if (index > 0) {
+				Assertions.assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value, "Value " + value + " fits a lower bucket.");
+			}
+		}
+	}
+	
+	@Test
+	void getPercentile() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		
+		long p50 = histogram.getPercentile(50);
+		long p99 = histogram.getPercentile(99);
+		
+		Assertions.assertEquals(1000, histogram.getCount(), "Count is not correct.");
+		Assertions.assertEquals(1000000, histogram.getMax(), "Max is not correct.");
+		Assertions.assertTrue(p50 >= 500000 && p50 <= 500000 * 9 / 8, "Median is not correct: " + p50);
+		Assertions.assertTrue(p99 >= 990000 && p99 <= 1000000, "99th percentile is not correct: " + p99);
+		Assertions.assertEquals(1000000, histogram.getPercentile(100), "100th percentile is not the max.");
+	}
+	
+	@Test
+	void reset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(42);
+		histogram.reset();
+		
+		Assertions.assertEquals(0, histogram.getCount(), "Count is not reset.");
+		Assertions.assertEquals(0, histogram.getMax(), "Max is not reset.");
+		Assertions.assertEquals(0, histogram.getPercentile(50), "Percentile is not reset.");
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.diagnostics.AllocationCounter;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class EventBusTest {
+	
+	@AfterEach
+	void clear() {
+		EventBus.clear();
+	}
+	
+	@Test
+	void deliverEventsInBatch() {
+		List<String> received = new ArrayList<>();
+		EventBus.subscribe(String.class, received::add);
+		
+		EventBus.publish("first");
+		EventBus.publish("second");
+		
+		Assertions.assertTrue(received.isEmpty(), "Event is delivered before the delivery.");
+		
+		EventBus.deliver();
+		
+		Assertions.assertEquals(Arrays.asList("first", "second"), received, "Events are not delivered in order.");
+	}
+	
+	@Test
+	void deliverEventsToHandlersOfSupertypes() {
+		List<Object> numbers = new ArrayList<>();
+		List<Object> integers = new ArrayList<>();
+		EventBus.subscribe(Number.class, numbers::add);
+		EventBus.subscribe(Integer.class, integers::add);
+		
+		EventBus.publish(1);
+		EventBus.publish(2.0);
+		EventBus.deliver();
+		
+		Assertions.assertEquals(Arrays.asList(1, 2.0), numbers, "Events are not delivered to the handler of a supertype.");
+		Assertions.assertEquals(Arrays.asList((Object) 1), integers, "Events are not delivered by type.");
+	}
+	
+	@Test
+	void stopDeliveringToUnsubscribedHandler() {
+		List<String> received = new ArrayList<>();
+		IEventHandler<String> handler = received::add;
+		EventBus.subscribe(String.class, handler);
+		EventBus.unsubscribe(String.class, handler);
+		
+		EventBus.publish("event");
+		EventBus.deliver();
+		
+		Assertions.assertTrue(received.isEmpty(), "Event is delivered to an unsubscribed handler.");
+	}
+	
+	@Test
+	void keepDeliveringAfterHandlerFails() {
+		List<String> received = new ArrayList<>();
+		EventBus.subscribe(String.class, event -> {
+			throw new IllegalStateException("Handler failed.");
+		});
+		EventBus.subscribe(String.class, received::add);
+		
+		EventBus.publish("first");
+		EventBus.publish("second");
+		EventBus.deliver();
+		
+		Assertions.assertEquals(Arrays.asList("first", "second"), received, "Failing handler dropped the batch.");
+	}
+	
+	@Test
+	void releaseClassLoaderOfUnsubscribedEvents() throws Exception {
+		URL location = EventBusTest.class.getProtectionDomain().getCodeSource().getLocation();
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{location}, null);
+		WeakReference<ClassLoader> reference = new WeakReference<>(classLoader);
+		Class<?> type = classLoader.loadClass(ReloadedEvent.class.getName());
+		
+		Assertions.assertNotSame(ReloadedEvent.class, type, "Event type was not loaded by a separate class loader.");
+		
+		EventBus.subscribe(type, event -> {});
+		EventBus.unsubscribeAll(classLoader);
+		classLoader.close();
+		
+		//noinspection UnusedAssignment
+		classLoader = null;
+		//noinspection UnusedAssignment
+		type = null;
+		
+		for (int i = 0; i < 20 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		
+		Assertions.assertNull(reference.get(), "Event bus still references the unsubscribed class loader.");
+	}
+	
+	@Test
+	void publishFromWorkerThreads() throws InterruptedException {
+		List<Integer> received = new ArrayList<>();
+		EventBus.subscribe(Integer.class, received::add);
+		Thread[] threads = new Thread[4];
+		
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					EventBus.publish(i);
+				}
+			});
+			threads[t].start();
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		EventBus.deliver();
+		
+		Assertions.assertEquals(40000, received.size(), "Events published from worker threads are lost.");
+	}
+	
+	@Test
+	void publishWithoutSubscribersDoesNotAllocate() {
+		Assumptions.assumeTrue(AllocationCounter.isSupported(), "Allocations cannot be measured on this JVM.");
+		Object event = new Object();
+		
+		// Resolves the handlers of the type, which allocates once.
+		EventBus.publish(event);
+		
+		long start = AllocationCounter.getAllocatedBytes();
+		
+		for (int i = 0; i < 100000; i++) {
+			EventBus.publish(event);
+		}
+		
+		long allocated = AllocationCounter.getAllocatedBytes() - start;
+		EventBus.deliver();
+		
+		Assertions.assertTrue(allocated < 1024, "Publishing without subscribers allocates " + allocated + " bytes.");
+	}
+	
+	public static final class ReloadedEvent {
+	}
+}
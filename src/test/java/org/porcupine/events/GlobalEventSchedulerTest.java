@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.utilities.RandomStream;
+
+import java.util.*;
+
+class GlobalEventSchedulerTest {
+	
+	@Test
+	void fireEventsAtTheirRate() {
+		Counter frequent = new Counter(2);
+		Counter rare = new Counter(0.1f);
+		Counter never = new Counter(0);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(
+				Arrays.asList(frequent, rare, never),
+				owner -> new RandomStream(42)
+		);
+		
+		for (int i = 0; i < 20000; i++) {
+			scheduler.update(0.05);
+		}
+		
+		Assertions.assertEquals(2000, frequent.count, 150, "Frequent event does not fire at its rate.");
+		Assertions.assertEquals(100, rare.count, 35, "Rare event does not fire at its rate.");
+		Assertions.assertEquals(0, never.count, "Event without a chance fires.");
+	}
+	
+	@Test
+	void fireNothingWhilePaused() {
+		Counter event = new Counter(1000);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(Collections.singletonList(event), owner -> new RandomStream(42));
+		
+		for (int i = 0; i < 100; i++) {
+			scheduler.update(0);
+		}
+		
+		Assertions.assertEquals(0, event.count, "Event fires while the game is paused.");
+	}
+	
+	@Test
+	void rescheduleEventWhoseRateChanged() {
+		Counter event = new Counter(0);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(Collections.singletonList(event), owner -> new RandomStream(42));
+		scheduler.update(1);
+		
+		event.chance = 1000;
+		GlobalEventScheduler.notifyRateChanged(event);
+		scheduler.update(1);
+		
+		Assertions.assertTrue(event.count > 0, "Event is not rescheduled after its rate changed.");
+		
+		event.chance = 0;
+		GlobalEventScheduler.notifyRateChanged(event);
+		scheduler.update(1);
+		int count = event.count;
+		
+		for (int i = 0; i < 100; i++) {
+			scheduler.update(1);
+		}
+		
+		Assertions.assertEquals(count, event.count, "Event fires after its chance dropped to zero.");
+	}
+	
+	@Test
+	void pickUpRateChangeWithoutNotification() {
+		Counter event = new Counter(0);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(Collections.singletonList(event), owner -> new RandomStream(42));
+		event.chance = 1000;
+		
+		for (int i = 0; i < 30; i++) {
+			scheduler.update(1);
+		}
+		
+		Assertions.assertTrue(event.count > 0, "Changed rate is not picked up by the periodic check.");
+	}
+	
+	@Test
+	void fireEventsReproducibly() {
+		Assertions.assertEquals(recordFireTimes(7), recordFireTimes(7), "Events with the same seed fire differently.");
+		Assertions.assertNotEquals(recordFireTimes(7), recordFireTimes(8), "Events with a different seed fire the same.");
+	}
+	
+	@Test
+	void rescheduleFromRestoredStreams() {
+		Map<Object, RandomStream> streams = new IdentityHashMap<>();
+		Counter first = new Counter(0.5f);
+		Counter second = new Counter(0.2f);
+		List<IGlobalEvent> events = Arrays.asList(first, second);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(
+				events,
+				owner -> streams.computeIfAbsent(owner, key -> new RandomStream(1))
+		);
+		
+		for (int i = 0; i < 100; i++) {
+			scheduler.update(0.1);
+		}
+		
+		// Restores the streams as a loaded game would, after which the pending occurrences are drawn again.
+		streams.values().forEach(stream -> stream.setState(7));
+		scheduler.reset(events);
+		
+		Assertions.assertEquals(
+				recordFireTimes(7),
+				recordFireTimes(scheduler, first, second),
+				"Events are not scheduled from their restored streams."
+		);
+	}
+	
+	private static List<Integer> recordFireTimes(long seed) {
+		Counter first = new Counter(0.5f);
+		Counter second = new Counter(0.2f);
+		GlobalEventScheduler scheduler = new GlobalEventScheduler(Arrays.asList(first, second), owner -> new RandomStream(seed));
+		return recordFireTimes(scheduler, first, second);
+	}
+	
+	private static List<Integer> recordFireTimes(GlobalEventScheduler scheduler, Counter first, Counter second) {
+		List<Integer> fireTimes = new ArrayList<>();
+		
+		for (int i = 0; i < 1000; i++) {
+			int count = first.count + second.count;
+			scheduler.update(0.1);
+			
+			if (first.count + second.count > count) {
+				fireTimes.add(i);
+			}
+		}
+		
+		return fireTimes;
+	}
+	
+	private static class Counter implements IGlobalEvent {
+		private float chance;
+		private int count;
+		
+		Counter(float chance) {
+			this.chance = chance;
+			this.count = 0;
+		}
+		
+		@Override
+		public void onEvent() {
+			count++;
+		}
+		
+		@Override
+		public float chancePerSecond() {
+			return chance;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.utilities.RandomStream;
+import settlement.room.main.RoomBlueprintIns;
+import settlement.room.main.RoomInstance;
+
+import java.util.*;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class RoomEventDispatcherTest {
+	private static final int INSTANCE_COUNT = 1000;
+	
+	@Test
+	void fireEveryEventOncePerSelectedInstance() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		List<RecordingEvent> events = Arrays.asList(
+				new RecordingEvent(instances, 0.5f),
+				new RecordingEvent(instances, 0.25f),
+				new RecordingEvent(instances, 0.1f)
+		);
+		RoomEventDispatcher dispatcher = createDispatcher(events, instances);
+		int firstFired = 0;
+		int lastFired = 0;
+		
+		for (int update = 0; update < 10; update++) {
+			instances.selected.clear();
+			events.forEach(event -> event.fired.clear());
+			dispatcher.update(1);
+			
+			Set<Integer> selected = new HashSet<>();
+			
+			for (int index : instances.selected) {
+				Assertions.assertTrue(index >= 0 && index < INSTANCE_COUNT, "Instance " + index + " does not exist.");
+				Assertions.assertTrue(selected.add(index), "Instance " + index + " was looked up more than once.");
+			}
+			
+			Set<Integer> fired = new HashSet<>();
+			
+			for (RecordingEvent event : events) {
+				Set<Integer> firedInstances = new HashSet<>();
+				
+				for (int index : event.fired) {
+					Assertions.assertTrue(selected.contains(index), "Event fired for an instance that was not looked up.");
+					Assertions.assertTrue(firedInstances.add(index), "Event fired more than once for instance " + index + '.');
+				}
+				
+				fired.addAll(firedInstances);
+			}
+			
+			Assertions.assertEquals(selected, fired, "Instance was looked up without any event occurring for it.");
+			firstFired += events.get(0).fired.size();
+			lastFired += events.get(2).fired.size();
+		}
+		
+		Assertions.assertTrue(firstFired > lastFired, "Events do not occur at their rate.");
+	}
+	
+	@Test
+	void fireCertainEventForEveryInstance() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		RecordingEvent certain = new RecordingEvent(instances, 1000);
+		RecordingEvent impossible = new RecordingEvent(instances, 0);
+		createDispatcher(Arrays.asList(certain, impossible), instances).update(1);
+		
+		Assertions.assertEquals(INSTANCE_COUNT, instances.selected.size(), "Instance is not looked up exactly once.");
+		Assertions.assertEquals(INSTANCE_COUNT, certain.fired.size(), "Certain event did not fire for every instance.");
+		Assertions.assertTrue(impossible.fired.isEmpty(), "Event without chance fired.");
+	}
+	
+	@Test
+	void fireBatchesForRunsOfInstances() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		BatchEvent certain = new BatchEvent(instances, 1000);
+		BatchEvent frequent = new BatchEvent(instances, 0.5f);
+		createDispatcher(Arrays.asList(certain, frequent), instances).update(1);
+		
+		Assertions.assertEquals(1, certain.batches.size(), "Certain event is not handed every instance at once.");
+		Assertions.assertArrayEquals(new int[]{0, INSTANCE_COUNT}, certain.batches.get(0), "Batch does not span every instance.");
+		
+		int previousTo = -1;
+		int batchedCount = 0;
+		
+		for (int[] batch : frequent.batches) {
+			Assertions.assertTrue(batch[0] > previousTo, "Batches overlap or are not separated by a skipped instance.");
+			Assertions.assertTrue(batch[1] > batch[0] && batch[1] <= INSTANCE_COUNT, "Batch is out of range.");
+			
+			batchedCount += batch[1] - batch[0];
+			previousTo = batch[1];
+		}
+		
+		Assertions.assertEquals(INSTANCE_COUNT * SkipSampler.probability(0.5, 1), batchedCount, INSTANCE_COUNT * 0.1, "Batched events do not occur at their rate.");
+		Assertions.assertTrue(instances.selected.isEmpty(), "Instances are looked up for batched events.");
+		Assertions.assertTrue(certain.fired.isEmpty(), "Batched event fired for a single instance.");
+	}
+	
+	@Test
+	void handSingleInstancesToEventsWithoutBatch() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		RecordingEvent single = new RecordingEvent(instances, 1000);
+		BatchEvent batched = new BatchEvent(instances, 1000);
+		createDispatcher(Arrays.asList(single, batched), instances).update(1);
+		
+		Assertions.assertEquals(INSTANCE_COUNT, single.fired.size(), "Event without batch is not handed single instances.");
+		Assertions.assertTrue(batched.fired.isEmpty(), "Event with batch is handed single instances.");
+		Assertions.assertEquals(1, batched.batches.size(), "Event with batch is not handed the instances at once.");
+	}
+	
+	@Test
+	void fireOnlyEventsOfLastReset() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		RecordingEvent removed = new RecordingEvent(instances, 1000);
+		RecordingEvent kept = new RecordingEvent(instances, 1000);
+		RoomEventDispatcher dispatcher = createDispatcher(Arrays.asList(removed, kept), instances);
+		
+		dispatcher.reset(Collections.singletonList(kept));
+		dispatcher.update(1);
+		
+		Assertions.assertTrue(removed.fired.isEmpty(), "Event removed by a reset fired.");
+		Assertions.assertEquals(INSTANCE_COUNT, kept.fired.size(), "Event kept by a reset did not fire.");
+		Assertions.assertEquals(INSTANCE_COUNT, instances.selected.size(), "Events of a room do not share a single pass.");
+	}
+	
+	@Test
+	void doNotFireWithoutElapsedTime() {
+		StubInstances instances = new StubInstances(INSTANCE_COUNT);
+		RecordingEvent event = new RecordingEvent(instances, 1000);
+		createDispatcher(Collections.singletonList(event), instances).update(0);
+		
+		Assertions.assertTrue(event.fired.isEmpty(), "Event fired without any time passing.");
+	}
+	
+	@Test
+	void detectOverriddenBatch() {
+		StubInstances instances = new StubInstances(0);
+		
+		Assertions.assertFalse(RoomEventDispatcher.overridesBatch(new RecordingEvent(instances, 1)), "Default batch is reported as overridden.");
+		Assertions.assertTrue(RoomEventDispatcher.overridesBatch(new BatchEvent(instances, 1)), "Overridden batch is not detected.");
+	}
+	
+	private static RoomEventDispatcher createDispatcher(List<? extends IRoomEvent> events, StubInstances instances) {
+		Map<Object, RandomStream> streams = new IdentityHashMap<>();
+		
+		for (IRoomEvent event : events) {
+			streams.put(event, new RandomStream(42 + streams.size()));
+		}
+		
+		return new RoomEventDispatcher(new ArrayList<>(events), streams::get, instances);
+	}
+	
+	/**
+	 * The numbered instances of a single room, recording the instances that are looked up.
+	 */
+	private static final class StubInstances implements IRoomInstanceSource {
+		private final int instanceCount;
+		private final List<Integer> selected;
+		
+		private StubInstances(int instanceCount) {
+			this.instanceCount = instanceCount;
+			this.selected = new ArrayList<>();
+		}
+		
+		@Override
+		public int getInstanceCount(RoomBlueprintIns<?> blueprint) {
+			return instanceCount;
+		}
+		
+		@Override
+		public Object getInstance(RoomBlueprintIns<?> blueprint, int index) {
+			selected.add(index);
+			return null;
+		}
+	}
+	
+	/**
+	 * An event of the stub room, recording the instances it fires for.
+	 */
+	private static class RecordingEvent implements IRoomEvent {
+		private final StubInstances instances;
+		private final float chance;
+		final List<Integer> fired;
+		
+		private RecordingEvent(StubInstances instances, float chance) {
+			this.instances = instances;
+			this.chance = chance;
+			this.fired = new ArrayList<>();
+		}
+		
+		@Override
+		public void onEvent(RoomInstance instance) {
+			fired.add(instances.selected.get(instances.selected.size() - 1));
+		}
+		
+		@Override
+		public float chancePerSecond() {
+			return chance;
+		}
+		
+		@Override
+		public RoomBlueprintIns<?> getRoomType() {
+			return null;
+		}
+	}
+	
+	/**
+	 * An event of the stub room handling runs of instances at once, recording every run.
+	 */
+	private static final class BatchEvent extends RecordingEvent {
+		private final List<int[]> batches;
+		
+		private BatchEvent(StubInstances instances, float chance) {
+			super(instances, chance);
+			this.batches = new ArrayList<>();
+		}
+		
+		@Override
+		public void onEventBatch(RoomBlueprintIns<?> blueprint, int from, int to) {
+			batches.add(new int[]{from, to});
+		}
+	}
+}
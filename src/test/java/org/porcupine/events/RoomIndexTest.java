@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import settlement.room.main.RoomBlueprintIns;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class RoomIndexTest {
+	@AfterEach
+	void clearIndex() {
+		RoomIndex.clear();
+	}
+	
+	@Test
+	void notifyExistingRoomsWhenListenerIsAdded() {
+		StubInstances instances = new StubInstances(new Object(), null, new Object());
+		RoomIndex.TrackedRooms tracked = new RoomIndex.TrackedRooms(null, instances);
+		tracked.rebuild();
+		
+		RecordingListener listener = new RecordingListener();
+		tracked.addListener(listener);
+		
+		Assertions.assertEquals(tracked.getRooms(), listener.added, "Listener was not notified of the existing rooms.");
+		Assertions.assertEquals(0, tracked.getRooms().get(0).getIndex(), "Handle has the wrong index.");
+		Assertions.assertEquals(2, tracked.getRooms().get(1).getIndex(), "Handle has the wrong index.");
+	}
+	
+	@Test
+	void notifyAddedAndRemovedRooms() {
+		Object first = new Object();
+		Object second = new Object();
+		StubInstances instances = new StubInstances(first, second);
+		RoomIndex.TrackedRooms tracked = new RoomIndex.TrackedRooms(null, instances);
+		tracked.rebuild();
+		
+		RecordingListener listener = new RecordingListener();
+		tracked.addListener(listener);
+		listener.added.clear();
+		
+		RoomHandle removed = tracked.getRooms().get(0);
+		instances.list.remove(first);
+		Object third = new Object();
+		instances.list.add(third);
+		tracked.update();
+		
+		Assertions.assertEquals(1, listener.removed.size(), "Destroyed room was not reported once.");
+		Assertions.assertSame(removed, listener.removed.get(0), "Wrong room was reported as destroyed.");
+		Assertions.assertFalse(removed.isValid(), "Handle of a destroyed room is still valid.");
+		Assertions.assertEquals(1, listener.added.size(), "Built room was not reported once.");
+		Assertions.assertSame(third, listener.added.get(0).getKey(), "Wrong room was reported as built.");
+	}
+	
+	@Test
+	void keepHandlesOfRoomsThatMoved() {
+		Object first = new Object();
+		Object second = new Object();
+		StubInstances instances = new StubInstances(first, second);
+		RoomIndex.TrackedRooms tracked = new RoomIndex.TrackedRooms(null, instances);
+		tracked.rebuild();
+		
+		RoomHandle handle = tracked.getRooms().get(1);
+		RecordingListener listener = new RecordingListener();
+		tracked.addListener(listener);
+		listener.added.clear();
+		
+		instances.list.remove(first);
+		tracked.update();
+		
+		Assertions.assertSame(handle, tracked.getRooms().get(0), "Handle of a moved room was replaced.");
+		Assertions.assertTrue(handle.isValid(), "Handle of a moved room was invalidated.");
+		Assertions.assertEquals(0, handle.getIndex(), "Handle of a moved room has the wrong index.");
+		Assertions.assertTrue(listener.added.isEmpty(), "Moved room was reported as built.");
+	}
+	
+	@Test
+	void noticeRoomReplacedAtSameIndex() {
+		StubInstances instances = new StubInstances();
+		RoomIndex.TrackedRooms tracked = new RoomIndex.TrackedRooms(null, instances);
+		
+		for (int i = 0; i < 100; i++) {
+			instances.list.add(new Object());
+		}
+		
+		tracked.rebuild();
+		RecordingListener listener = new RecordingListener();
+		tracked.addListener(listener);
+		listener.added.clear();
+		
+		Object replacement = new Object();
+		instances.list.set(40, replacement);
+		
+		for (int i = 0; i < 100 && listener.added.isEmpty(); i++) {
+			tracked.update();
+		}
+		
+		Assertions.assertEquals(1, listener.removed.size(), "Replaced room was not reported as destroyed.");
+		Assertions.assertEquals(1, listener.added.size(), "Replacement was not reported as built.");
+		Assertions.assertSame(replacement, listener.added.get(0).getKey(), "Wrong room was reported as built.");
+	}
+	
+	@Test
+	void doNotRebuildForEmptySlots() {
+		StubInstances instances = new StubInstances();
+		RoomIndex.TrackedRooms tracked = new RoomIndex.TrackedRooms(null, instances);
+		
+		for (int i = 0; i < 100; i++) {
+			instances.list.add(i % 3 == 0 ? null : new Object());
+		}
+		
+		tracked.rebuild();
+		
+		for (int i = 0; i < 20; i++) {
+			instances.lookups = 0;
+			tracked.update();
+			Assertions.assertTrue(instances.lookups <= 17, "Unchanged rooms with empty slots were compared as a whole.");
+		}
+	}
+	
+	/**
+	 * The instances of a single blueprint, held in a list the tests change directly.
+	 */
+	private static final class StubInstances implements IRoomInstanceSource {
+		private final List<Object> list = new ArrayList<>();
+		private int lookups;
+		
+		private StubInstances(Object... instances) {
+			Collections.addAll(list, instances);
+		}
+		
+		@Override
+		public int getInstanceCount(RoomBlueprintIns<?> blueprint) {
+			return list.size();
+		}
+		
+		@Override
+		public Object getInstance(RoomBlueprintIns<?> blueprint, int index) {
+			lookups++;
+			return list.get(index);
+		}
+	}
+	
+	private static final class RecordingListener implements IRoomListener {
+		private final List<RoomHandle> added = new ArrayList<>();
+		private final List<RoomHandle> removed = new ArrayList<>();
+		
+		@Override
+		public void onRoomAdded(RoomHandle room) {
+			added.add(room);
+		}
+		
+		@Override
+		public void onRoomRemoved(RoomHandle room) {
+			removed.add(room);
+		}
+	}
+}
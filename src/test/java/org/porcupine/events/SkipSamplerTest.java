@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class SkipSamplerTest {
+	
+	@Test
+	void selectTrialsWithTheirProbability() {
+		Random random = new Random(42);
+		int trials = 1000000;
+		int successes = 0;
+		long index = SkipSampler.skip(0.01, random.nextDouble());
+		
+		while (index < trials) {
+			successes++;
+			index += 1 + SkipSampler.skip(0.01, random.nextDouble());
+		}
+		
+		Assertions.assertEquals(10000, successes, 300, "Trials are not selected with their probability.");
+	}
+	
+	@Test
+	void skip() {
+		Assertions.assertEquals(0, SkipSampler.skip(1, 0.5), "Trial that always succeeds is skipped.");
+		Assertions.assertEquals(Integer.MAX_VALUE, SkipSampler.skip(0, 0.5), "Trial that never succeeds is not skipped.");
+		Assertions.assertEquals(Integer.MAX_VALUE, SkipSampler.skip(1e-300, 0.999), "Skip overflows.");
+	}
+	
+	@Test
+	void probability() {
+		Assertions.assertEquals(1 - Math.exp(-0.5), SkipSampler.probability(2, 0.25), 1e-12, "Probability is not correct.");
+		Assertions.assertEquals(0, SkipSampler.probability(2, 0), "Probability is not zero while paused.");
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class ClassFileHeaderTest {
+	
+	@Test
+	void readName() throws IOException {
+		ClassFileHeader header = readHeader(SampleList.class);
+		Assertions.assertEquals(SampleList.class.getName(), header.getName(), "Class name is not correct.");
+	}
+	
+	@Test
+	void readSuperName() throws IOException {
+		ClassFileHeader header = readHeader(SampleList.class);
+		Assertions.assertEquals(AbstractList.class.getName(), header.getSuperName(), "Superclass name is not correct.");
+	}
+	
+	@Test
+	void readInterfaceNames() throws IOException {
+		ClassFileHeader header = readHeader(SampleList.class);
+		Assertions.assertEquals(
+				Arrays.asList(Runnable.class.getName(), Serializable.class.getName()),
+				header.getInterfaceNames(),
+				"Interface names are not correct."
+		);
+	}
+	
+	@Test
+	void readAccessFlags() throws IOException {
+		Assertions.assertTrue(readHeader(SampleInterface.class).isInterface(), "Interface is not detected.");
+		Assertions.assertTrue(readHeader(SampleInterface.class).isAbstract(), "Interfaces should be abstract.");
+		Assertions.assertFalse(readHeader(SampleList.class).isAbstract(), "Concrete class is reported abstract.");
+	}
+	
+	@Test
+	void rejectInvalidClassFile() {
+		InputStream stream = new ByteArrayInputStream(new byte[]{0x50, 0x4B, 0x03, 0x04});
+		Assertions.assertThrows(IOException.class, () -> ClassFileHeader.read(stream), "Invalid magic is accepted.");
+	}
+	
+	@SuppressWarnings("HardcodedFileSeparator")
+	private static ClassFileHeader readHeader(Class<?> clazz) throws IOException {
+		String resource = '/' + clazz.getName().replace('.', '/') + ".class";
+		
+		try (InputStream stream = clazz.getResourceAsStream(resource)) {
+			Assertions.assertNotNull(stream, "Class file of the sample class could not be found.");
+			return ClassFileHeader.read(stream);
+		}
+	}
+	
+	private interface SampleInterface {
+	}
+	
+	@SuppressWarnings("serial")
+	private static final class SampleList extends AbstractList<Double> implements Runnable, Serializable {
+		private static final long LONG_CONSTANT = 4_000_000_000L;
+		private static final double DOUBLE_CONSTANT = 0.5;
+		
+		@Override
+		public Double get(int index) {
+			return LONG_CONSTANT * DOUBLE_CONSTANT;
+		}
+		
+		@Override
+		public int size() {
+			return 0;
+		}
+		
+		@Override
+		public void run() {
+		
+		}
+	}
+}
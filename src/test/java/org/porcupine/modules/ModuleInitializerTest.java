@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.modules;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.utilities.Version;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@SuppressWarnings({"DuplicateStringLiteralInspection", "PublicField"})
+class ModuleInitializerTest {
+	private static final List<String> invocations = Collections.synchronizedList(new ArrayList<>());
+	
+	@Test
+	void initializeDependenciesFirst() {
+		invocations.clear();
+		
+		List<AggregateModule> modules = Arrays.asList(
+				createModule(new Dependent(), "Dependent", new Version(1)),
+				createModule(new Dependency(), "Dependency", new Version(1, 5))
+		);
+		
+		ModuleInitializer.initialize(modules, Collections.emptyList());
+		
+		Assertions.assertEquals(
+				Arrays.asList("Dependency.early", "Dependent.early", "Dependency.late", "Dependent.late"),
+				invocations,
+				"Modules are not initialized in dependency order."
+		);
+	}
+	
+	@Test
+	void initializeAgainstActiveModules() {
+		invocations.clear();
+		
+		List<AggregateModule> activeModules = Collections.singletonList(
+				createModule(new Dependency(), "Dependency", new Version(1, 5))
+		);
+		List<AggregateModule> modules = Collections.singletonList(createModule(new Dependent(), "Dependent", new Version(1)));
+		
+		ModuleInitializer.initialize(modules, activeModules, Collections.emptyList());
+		
+		Assertions.assertEquals(
+				Arrays.asList("Dependent.early", "Dependent.late"),
+				invocations,
+				"Only the added modules are expected to be initialized."
+		);
+		
+		List<AggregateModule> incompatibleModules = Collections.singletonList(
+				createModule(new Dependency(), "Dependency", new Version(2))
+		);
+		
+		Assertions.assertThrows(
+				InvalidAggregateException.class,
+				() -> ModuleInitializer.initialize(modules, incompatibleModules, Collections.emptyList()),
+				"Incompatible version of an active dependency is accepted."
+		);
+	}
+	
+	@Test
+	void rejectIncompatibleVersion() {
+		List<AggregateModule> modules = Arrays.asList(
+				createModule(new Dependent(), "Dependent", new Version(1)),
+				createModule(new Dependency(), "Dependency", new Version(2))
+		);
+		
+		Assertions.assertThrows(
+				InvalidAggregateException.class,
+				() -> ModuleInitializer.initialize(modules, Collections.emptyList()),
+				"Incompatible dependency version is accepted."
+		);
+	}
+	
+	@Test
+	void rejectMissingDependency() {
+		List<AggregateModule> modules = Collections.singletonList(createModule(new Dependent(), "Dependent", new Version(1)));
+		
+		Assertions.assertThrows(
+				InvalidAggregateException.class,
+				() -> ModuleInitializer.initialize(modules, Collections.emptyList()),
+				"Missing dependency is accepted."
+		);
+	}
+	
+	@Test
+	void rejectCycle() {
+		List<AggregateModule> modules = Arrays.asList(
+				createModule(new CyclicA(), "CyclicA", new Version(1)),
+				createModule(new CyclicB(), "CyclicB", new Version(1))
+		);
+		
+		Assertions.assertThrows(
+				InvalidAggregateException.class,
+				() -> ModuleInitializer.initialize(modules, Collections.emptyList()),
+				"Cyclic dependencies are accepted."
+		);
+	}
+	
+	private static AggregateModule createModule(IScriptEntity entity, String name, Version version) {
+		AggregateModulePaths paths = new AggregateModulePaths(
+				Paths.get(name),
+				Paths.get(name, "campaigns"),
+				Paths.get(name, "examples"),
+				Paths.get(name, "saves"),
+				Paths.get(name, "script")
+		);
+		
+		AggregateModuleInfo info = new AggregateModuleInfo(name, "", "", version, paths, Collections.emptyList());
+		AggregateModule module = new AggregateModule(entity, info);
+		module.modInfo = info;
+		return module;
+	}
+	
+	@ModuleDependency(name = "Dependency", version = "[1.0,2.0)")
+	public static class Dependent implements IScriptEntity {
+		@Override
+		public void onInitializeEarly() {
+			invocations.add("Dependent.early");
+		}
+		
+		@Override
+		public void onInitializeLate() {
+			invocations.add("Dependent.late");
+		}
+	}
+	
+	@ConcurrentInitialization
+	public static class Dependency implements IScriptEntity {
+		@Override
+		public void onInitializeEarly() {
+			invocations.add("Dependency.early");
+		}
+		
+		@Override
+		public void onInitializeLate() {
+			invocations.add("Dependency.late");
+		}
+	}
+	
+	@ModuleDependency(name = "CyclicB")
+	public static class CyclicA implements IScriptEntity {
+	}
+	
+	@ModuleDependency(name = "CyclicA")
+	public static class CyclicB implements IScriptEntity {
+	}
+}
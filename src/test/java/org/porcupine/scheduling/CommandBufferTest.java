@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.modules.ITickCapable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class CommandBufferTest {
+	@Test
+	void playBackInModuleOrderOnCallingThread() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0, 4);
+		List<String> applied = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		
+		for (int i = 0; i < 8; i++) {
+			scheduler.add(i % 2 == 0 ? new Recording(i, applied, threads) : new ConcurrentRecording(i, applied, threads));
+		}
+		
+		scheduler.update(1, 0);
+		
+		List<String> expected = new ArrayList<>();
+		
+		for (int i = 0; i < 8; i++) {
+			expected.add(i + ".first");
+			expected.add(i + ".second");
+		}
+		
+		Assertions.assertEquals(expected, applied, "Commands are not played back in module order.");
+		threads.forEach(thread -> Assertions.assertSame(Thread.currentThread(), thread, "Command is applied off the calling thread."));
+	}
+	
+	@Test
+	void rejectRecordingOutsideTick() {
+		Assertions.assertThrows(
+				IllegalStateException.class,
+				CommandBuffer::current,
+				"Command buffer is available outside of a tick."
+		);
+	}
+	
+	private static class Recording implements ITickCapable {
+		private final int id;
+		private final List<String> applied;
+		private final List<Thread> threads;
+		
+		Recording(int id, List<String> applied, List<Thread> threads) {
+			this.id = id;
+			this.applied = applied;
+			this.threads = threads;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			CommandBuffer buffer = CommandBuffer.current();
+			
+			buffer.record(() -> apply("first"));
+			buffer.record(() -> apply("second"));
+		}
+		
+		private void apply(String command) {
+			applied.add(id + "." + command);
+			threads.add(Thread.currentThread());
+		}
+	}
+	
+	@ConcurrentTick
+	private static class ConcurrentRecording extends Recording {
+		ConcurrentRecording(int id, List<String> applied, List<Thread> threads) {
+			super(id, applied, threads);
+		}
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.modules.ITickCapable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class ConcurrentTickTest {
+	private static final int PARALLELISM = 4;
+	private static final int UPDATE_COUNT = 200;
+	
+	@Test
+	void matchSerialResults() {
+		List<Accumulator> serialModules = createModules();
+		List<Accumulator> parallelModules = createModules();
+		
+		runUpdates(new TickScheduler(() -> 0, 0, 1), serialModules);
+		runUpdates(new TickScheduler(() -> 0, 0, PARALLELISM), parallelModules);
+		
+		for (int i = 0; i < serialModules.size(); i++) {
+			Assertions.assertEquals(
+					serialModules.get(i).results,
+					parallelModules.get(i).results,
+					"Concurrent ticks of module " + i + " differ from serial ticks."
+			);
+		}
+	}
+	
+	@Test
+	void completeEveryTickBeforeUpdateReturns() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0, PARALLELISM);
+		AtomicInteger tickCount = new AtomicInteger();
+		
+		for (int i = 0; i < 8; i++) {
+			scheduler.add(new Sleeper(tickCount));
+		}
+		
+		for (int update = 1; update <= 5; update++) {
+			scheduler.update(1, 0);
+			Assertions.assertEquals(update * 8, tickCount.get(), "Update returned before every tick completed.");
+		}
+	}
+	
+	@Test
+	void neverTickReadOnlyModulesAlongsideSerialModules() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0, PARALLELISM);
+		AtomicBoolean serialTicking = new AtomicBoolean();
+		AtomicBoolean overlapped = new AtomicBoolean();
+		
+		for (int i = 0; i < 4; i++) {
+			scheduler.add(new Writer(serialTicking));
+			scheduler.add(new Reader(serialTicking, overlapped));
+		}
+		
+		for (int i = 0; i < 20; i++) {
+			scheduler.update(1, 0);
+		}
+		
+		Assertions.assertFalse(overlapped.get(), "Read-only module was ticked while a serial module was ticking.");
+	}
+	
+	@Test
+	void tickReadOnlyModulesAfterPrecedingWriters() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0, PARALLELISM);
+		AtomicInteger state = new AtomicInteger();
+		List<Integer> observed = new ArrayList<>();
+		
+		scheduler.add(new Incrementer(state));
+		scheduler.add(new Observer(state, observed));
+		scheduler.add(new Incrementer(state));
+		
+		for (int i = 0; i < 10; i++) {
+			scheduler.update(1, 0);
+		}
+		
+		Assertions.assertEquals(10, observed.size(), "Read-only module was not ticked on every update.");
+		
+		for (int i = 0; i < observed.size(); i++) {
+			Assertions.assertEquals(i * 2 + 1, (int) observed.get(i), "Read-only module did not see the preceding tick.");
+		}
+	}
+	
+	@Test
+	void propagateExceptionOfConcurrentTick() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0, PARALLELISM);
+		scheduler.add(new Failing());
+		
+		Assertions.assertThrows(IllegalStateException.class, () -> scheduler.update(1, 0), "Exception of concurrent tick is lost.");
+	}
+	
+	private static List<Accumulator> createModules() {
+		List<Accumulator> modules = new ArrayList<>();
+		
+		for (int i = 0; i < 16; i++) {
+			switch (i % 4) {
+				case 0:
+					modules.add(new Accumulator(i));
+					break;
+				case 1:
+					modules.add(new ThreadSafeAccumulator(i));
+					break;
+				case 2:
+					modules.add(new ReadOnlyAccumulator(i));
+					break;
+				default:
+					modules.add(new PeriodicAccumulator(i));
+					break;
+			}
+		}
+		
+		return modules;
+	}
+	
+	private static void runUpdates(TickScheduler scheduler, List<Accumulator> modules) {
+		modules.forEach(scheduler::add);
+		
+		for (int i = 0; i < UPDATE_COUNT; i++) {
+			scheduler.update((i % 7) * 0.125, 0);
+		}
+	}
+	
+	private static class Accumulator implements ITickCapable {
+		final List<Long> results = new ArrayList<>();
+		private final int id;
+		private long state;
+		
+		Accumulator(int id) {
+			this.id = id;
+			this.state = id;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			for (int i = 0; i < 1000; i++) {
+				state = state * 31 + Math.round(delta * 1000) + id;
+			}
+			
+			results.add(state);
+		}
+	}
+	
+	@ConcurrentTick
+	private static class ThreadSafeAccumulator extends Accumulator {
+		ThreadSafeAccumulator(int id) {
+			super(id);
+		}
+	}
+	
+	@ConcurrentTick(readOnly = true)
+	private static class ReadOnlyAccumulator extends Accumulator {
+		ReadOnlyAccumulator(int id) {
+			super(id);
+		}
+	}
+	
+	@ConcurrentTick
+	@TickCadence(updates = 3)
+	private static class PeriodicAccumulator extends Accumulator {
+		PeriodicAccumulator(int id) {
+			super(id);
+		}
+	}
+	
+	@ConcurrentTick
+	private static class Sleeper implements ITickCapable {
+		private final AtomicInteger tickCount;
+		
+		Sleeper(AtomicInteger tickCount) {
+			this.tickCount = tickCount;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			tickCount.incrementAndGet();
+		}
+	}
+	
+	private static class Writer implements ITickCapable {
+		private final AtomicBoolean serialTicking;
+		
+		Writer(AtomicBoolean serialTicking) {
+			this.serialTicking = serialTicking;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			serialTicking.set(true);
+			Thread.yield();
+			serialTicking.set(false);
+		}
+	}
+	
+	@ConcurrentTick(readOnly = true)
+	private static class Reader implements ITickCapable {
+		private final AtomicBoolean serialTicking;
+		private final AtomicBoolean overlapped;
+		
+		Reader(AtomicBoolean serialTicking, AtomicBoolean overlapped) {
+			this.serialTicking = serialTicking;
+			this.overlapped = overlapped;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			for (int i = 0; i < 100; i++) {
+				if (serialTicking.get()) {
+					overlapped.set(true);
+				}
+				
+				Thread.yield();
+			}
+		}
+	}
+	
+	private static class Incrementer implements ITickCapable {
+		private final AtomicInteger state;
+		
+		Incrementer(AtomicInteger state) {
+			this.state = state;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			state.incrementAndGet();
+		}
+	}
+	
+	@ConcurrentTick(readOnly = true)
+	private static class Observer implements ITickCapable {
+		private final AtomicInteger state;
+		private final List<Integer> observed;
+		
+		Observer(AtomicInteger state, List<Integer> observed) {
+			this.state = state;
+			this.observed = observed;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			observed.add(state.get());
+		}
+	}
+	
+	@ConcurrentTick
+	private static class Failing implements ITickCapable {
+		@Override
+		public void onTick(double delta) {
+			throw new IllegalStateException("Tick failed.");
+		}
+	}
+}
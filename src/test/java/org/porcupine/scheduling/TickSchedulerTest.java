@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.modules.ITickCapable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class TickSchedulerTest {
+	private static final double DELTA = 1.0e-9;
+	
+	@Test
+	void tickEveryUpdateWithoutCadence() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		Recorder recorder = new Recorder();
+		scheduler.add(recorder);
+		
+		for (int i = 0; i < 5; i++) {
+			scheduler.update(0.5, 0);
+		}
+		
+		Assertions.assertEquals(Arrays.asList(0.5, 0.5, 0.5, 0.5, 0.5), recorder.deltas, "Module is not ticked every update.");
+	}
+	
+	@Test
+	void tickEveryNthUpdateWithAccumulatedDelta() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		EveryThreeUpdates recorder = new EveryThreeUpdates();
+		scheduler.add(recorder);
+		
+		for (int i = 0; i < 9; i++) {
+			scheduler.update(0.25, 0);
+		}
+		
+		Assertions.assertEquals(3, recorder.deltas.size(), "Module is not ticked every third update.");
+		recorder.deltas.forEach(delta -> Assertions.assertEquals(0.75, delta, DELTA, "Delta is not accumulated."));
+	}
+	
+	@Test
+	void tickOnGameTime() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		EveryTenGameSeconds recorder = new EveryTenGameSeconds();
+		scheduler.add(recorder);
+		
+		for (int i = 0; i < 100; i++) {
+			scheduler.update(0, 0);
+		}
+		
+		Assertions.assertTrue(recorder.deltas.isEmpty(), "Module is ticked while the game is paused.");
+		
+		for (int i = 0; i < 20; i++) {
+			scheduler.update(1, 0);
+		}
+		
+		Assertions.assertEquals(2, recorder.deltas.size(), "Module is not ticked every ten seconds of game time.");
+		Assertions.assertEquals(10, recorder.deltas.get(0), DELTA, "Delta does not span the interval.");
+	}
+	
+	@Test
+	void tickOnRealTime() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		TwoHertz recorder = new TwoHertz();
+		scheduler.add(recorder);
+		
+		for (int millis = 0; millis <= 2000; millis += 10) {
+			scheduler.update(0.01, TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+		
+		Assertions.assertEquals(4, recorder.deltas.size(), "Module is not ticked twice per second.");
+	}
+	
+	@Test
+	void tickLongIntervalsBeyondOneRotation() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		EveryThousandUpdates recorder = new EveryThousandUpdates();
+		scheduler.add(recorder);
+		
+		for (int i = 0; i < 2999; i++) {
+			scheduler.update(0.001, 0);
+		}
+		
+		Assertions.assertEquals(2, recorder.deltas.size(), "Module with a period beyond one rotation is mistimed.");
+		Assertions.assertEquals(1, recorder.deltas.get(1), 1.0e-6, "Delta does not span the interval.");
+	}
+	
+	@Test
+	void keepOrderOfAddition() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		List<String> order = new ArrayList<>();
+		scheduler.add(new EveryThreeUpdates() {
+			@Override
+			public void onTick(double delta) {
+				order.add("first");
+			}
+		});
+		scheduler.add(new Recorder() {
+			@Override
+			public void onTick(double delta) {
+				order.add("second");
+			}
+		});
+		
+		for (int i = 0; i < 3; i++) {
+			scheduler.update(1, 0);
+		}
+		
+		Assertions.assertEquals(Arrays.asList("second", "second", "first", "second"), order, "Modules are ticked out of order.");
+	}
+	
+	@Test
+	void stopTickingRemovedModule() {
+		TickScheduler scheduler = new TickScheduler(() -> 0, 0);
+		Recorder everyUpdate = new Recorder();
+		EveryThreeUpdates everyThird = new EveryThreeUpdates();
+		scheduler.add(everyUpdate);
+		scheduler.add(everyThird);
+		
+		scheduler.update(1, 0);
+		scheduler.remove(everyUpdate);
+		scheduler.remove(everyThird);
+		
+		for (int i = 0; i < 5; i++) {
+			scheduler.update(1, 0);
+		}
+		
+		Assertions.assertEquals(1, everyUpdate.deltas.size(), "Removed module is still ticked.");
+		Assertions.assertTrue(everyThird.deltas.isEmpty(), "Removed module is still ticked.");
+	}
+	
+	@Test
+	void rejectMultipleCadences() {
+		Assertions.assertThrows(
+				IllegalArgumentException.class,
+				() -> new TickScheduler(() -> 0, 0).add(new Ambiguous()),
+				"Module declaring two cadences is accepted."
+		);
+	}
+	
+	@Test
+	void spreadDeferrableTicksOverUpdates() {
+		long[] clock = {0};
+		TickScheduler scheduler = new TickScheduler(() -> clock[0], 10);
+		List<String> order = new ArrayList<>();
+		Recorder mandatory = new Timed("mandatory", 100, clock, order);
+		Costly first = new Costly("first", 10, clock, order);
+		Costly second = new Costly("second", 10, clock, order);
+		Costly third = new Costly("third", 10, clock, order);
+		
+		scheduler.add(mandatory);
+		scheduler.add(first);
+		scheduler.add(second);
+		scheduler.add(third);
+		
+		for (int i = 0; i < 4; i++) {
+			scheduler.update(1, clock[0]);
+		}
+		
+		Assertions.assertEquals(4, mandatory.deltas.size(), "Module that is not deferrable is postponed.");
+		Assertions.assertEquals(
+				Arrays.asList("mandatory", "mandatory", "mandatory", "mandatory"),
+				order.subList(0, 4),
+				"Deferrable module is ticked while the budget is spent."
+		);
+		
+		order.clear();
+		scheduler.remove(mandatory);
+		
+		for (int i = 0; i < 6; i++) {
+			scheduler.update(1, clock[0]);
+		}
+		
+		Assertions.assertEquals(
+				Arrays.asList("first", "second", "third", "first", "second", "third"),
+				order,
+				"Deferrable modules do not take turns."
+		);
+		Assertions.assertEquals(6, second.deltas.get(0), DELTA, "Delta of postponed tick is not accumulated.");
+	}
+	
+	@Test
+	void tickHigherPriorityFirstAndGuardAgainstStarvation() {
+		long[] clock = {0};
+		TickScheduler scheduler = new TickScheduler(() -> clock[0], 10);
+		List<String> order = new ArrayList<>();
+		scheduler.add(new Starving("low", 10, clock, order));
+		scheduler.add(new Urgent("high", 10, clock, order));
+		
+		for (int i = 0; i < 5; i++) {
+			scheduler.update(1, clock[0]);
+		}
+		
+		Assertions.assertEquals(
+				Arrays.asList("high", "high", "high", "low", "high"),
+				order,
+				"Modules are not ticked by priority, or the starving module is not ticked after three deferrals."
+		);
+	}
+	
+	@Test
+	void demoteModuleExceedingWatchdogBudget() {
+		long[] clock = {0};
+		TickScheduler scheduler = new TickScheduler(() -> clock[0], 0, 1, new TickWatchdog(50, true, 0));
+		Recorder slow = new Timed("slow", 100, clock, new ArrayList<>());
+		scheduler.add(slow);
+		
+		for (int i = 0; i < 8; i++) {
+			scheduler.update(1, clock[0]);
+		}
+		
+		Assertions.assertEquals(
+				Arrays.asList(1.0, 2.0, 4.0),
+				slow.deltas,
+				"Slow module is not demoted, or the delta of skipped ticks is not accumulated."
+		);
+	}
+	
+	@Test
+	void quarantineModuleAfterRepeatedOffences() {
+		long[] clock = {0};
+		TickScheduler scheduler = new TickScheduler(() -> clock[0], 0, 1, new TickWatchdog(50, false, 3));
+		Recorder slow = new Timed("slow", 100, clock, new ArrayList<>());
+		Recorder fast = new Timed("fast", 10, clock, new ArrayList<>());
+		scheduler.add(slow);
+		scheduler.add(fast);
+		
+		for (int i = 0; i < 5; i++) {
+			scheduler.update(1, clock[0]);
+		}
+		
+		Assertions.assertEquals(3, slow.deltas.size(), "Module is not quarantined after three offences.");
+		Assertions.assertEquals(5, fast.deltas.size(), "Module within the budget is not ticked on every update.");
+	}
+	
+	private static class Recorder implements ITickCapable {
+		final List<Double> deltas = new ArrayList<>();
+		
+		@Override
+		public void onTick(double delta) {
+			deltas.add(delta);
+		}
+	}
+	
+	@TickCadence(updates = 3)
+	private static class EveryThreeUpdates extends Recorder {}
+	
+	@TickCadence(updates = 1000)
+	private static class EveryThousandUpdates extends Recorder {}
+	
+	@TickCadence(gameSeconds = 10)
+	private static class EveryTenGameSeconds extends Recorder {}
+	
+	@TickCadence(hertz = 2)
+	private static class TwoHertz extends Recorder {}
+	
+	@TickCadence(updates = 2, hertz = 2)
+	private static class Ambiguous extends Recorder {}
+	
+	private static class Timed extends Recorder {
+		private final String name;
+		private final long cost;
+		private final long[] clock;
+		private final List<String> order;
+		
+		Timed(String name, long cost, long[] clock, List<String> order) {
+			this.name = name;
+			this.cost = cost;
+			this.clock = clock;
+			this.order = order;
+		}
+		
+		@Override
+		public void onTick(double delta) {
+			super.onTick(delta);
+			order.add(name);
+			clock[0] += cost;
+		}
+	}
+	
+	@Deferrable
+	private static class Costly extends Timed {
+		Costly(String name, long cost, long[] clock, List<String> order) {
+			super(name, cost, clock, order);
+		}
+	}
+	
+	@Deferrable(maxDeferrals = 3)
+	private static class Starving extends Timed {
+		Starving(String name, long cost, long[] clock, List<String> order) {
+			super(name, cost, clock, order);
+		}
+	}
+	
+	@Deferrable(priority = 1)
+	private static class Urgent extends Timed {
+		Urgent(String name, long cost, long[] clock, List<String> order) {
+			super(name, cost, clock, order);
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class TimerServiceTest {
+	
+	@AfterEach
+	void clear() {
+		TimerService.clear();
+	}
+	
+	@Test
+	void keepHandlersOfKeysWithSameHash() {
+		List<String> fired = new ArrayList<>();
+		Assertions.assertEquals("Aa".hashCode(), "BB".hashCode(), "Keys do not share a hash.");
+		
+		TimerService.register("Aa", payload -> fired.add("Aa"));
+		TimerService.register("BB", payload -> fired.add("BB"));
+		TimerService.schedule("Aa", 1, 0);
+		TimerService.update(1);
+		
+		Assertions.assertEquals(Collections.singletonList("Aa"), fired, "Timer is handed to the wrong handler.");
+	}
+	
+	@Test
+	void doNotFireTimerCancelledDuringSameUpdate() {
+		List<String> fired = new ArrayList<>();
+		Timer[] later = new Timer[1];
+		
+		TimerService.schedule(1, () -> {
+			fired.add("first");
+			later[0].cancel();
+		});
+		later[0] = TimerService.schedule(1, () -> fired.add("second"));
+		TimerService.update(1);
+		
+		Assertions.assertEquals(Collections.singletonList("first"), fired, "Cancelled timer fired.");
+	}
+	
+	@Test
+	void keepFiringAfterTimerFails() {
+		List<Long> fired = new ArrayList<>();
+		TimerService.register("test:fired", fired::add);
+		
+		TimerService.schedule(1, () -> {
+			throw new IllegalStateException("Timer failed.");
+		});
+		TimerService.schedule("test:fired", 1, 7);
+		TimerService.update(1);
+		
+		Assertions.assertEquals(Collections.singletonList(7L), fired, "Failing timer dropped the other timers.");
+	}
+	
+	@Test
+	void restoreSavedTimers() {
+		List<Long> fired = new ArrayList<>();
+		TimerService.register("test:saved", fired::add);
+		TimerService.schedule("test:saved", 2, 7);
+		TimerService.schedule("test:saved", 4, 8);
+		TimerService.schedule(2, () -> fired.add(-1L));
+		TimerService.update(0.5);
+		
+		List<TimerService.SavedTimer> saved = TimerService.snapshot();
+		
+		Assertions.assertEquals(2, saved.size(), "Timers without a key are saved, or timers with a key are not.");
+		
+		TimerService.clear();
+		TimerService.register("test:saved", fired::add);
+		TimerService.schedule("test:saved", 1, 9);
+		TimerService.restore(saved);
+		
+		TimerService.update(1.49);
+		Assertions.assertTrue(fired.isEmpty(), "Restored timer fired before its remaining time passed.");
+		
+		TimerService.update(0.01);
+		Assertions.assertEquals(Collections.singletonList(7L), fired, "Restored timer did not fire in time.");
+		
+		TimerService.update(2);
+		Assertions.assertEquals(Arrays.asList(7L, 8L), fired, "Restored timers did not all fire.");
+	}
+	
+	@Test
+	void removeCallbacksAndHandlersOfClassLoader() throws Exception {
+		IsolatingClassLoader classLoader = new IsolatingClassLoader();
+		Class<?> type = classLoader.define(ReloadedCallback.class);
+		Object reloaded = type.getConstructor().newInstance();
+		
+		TimerService.register("test:reloaded", (ITimerHandler) reloaded);
+		Timer callbackTimer = TimerService.schedule(1, (Runnable) reloaded);
+		Timer keyedTimer = TimerService.schedule("test:reloaded", 1, 3);
+		Timer otherTimer = TimerService.schedule(1, () -> {});
+		
+		TimerService.removeAll(classLoader);
+		
+		Assertions.assertFalse(callbackTimer.isPending(), "Callback of the class loader was not cancelled.");
+		Assertions.assertTrue(keyedTimer.isPending(), "Timer with a key was cancelled.");
+		Assertions.assertTrue(otherTimer.isPending(), "Callback of another class loader was cancelled.");
+		
+		List<Long> fired = new ArrayList<>();
+		TimerService.register("test:reloaded", fired::add);
+		TimerService.update(1);
+		
+		Assertions.assertEquals(Collections.singletonList(3L), fired, "Pending timer is not handed to the new handler.");
+	}
+	
+	public static final class ReloadedCallback implements Runnable, ITimerHandler {
+		@Override
+		public void run() {
+		}
+		
+		@Override
+		public void onTimer(long payload) {
+		}
+	}
+	
+	/**
+	 * Defines a second copy of a class, as if the mod it belongs to was reloaded.
+	 */
+	private static final class IsolatingClassLoader extends ClassLoader {
+		private IsolatingClassLoader() {
+			super(TimerServiceTest.class.getClassLoader());
+		}
+		
+		private Class<?> define(Class<?> type) throws IOException {
+			String resource = type.getName().replace('.', '/') + ".class";
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			
+			try (InputStream stream = getParent().getResourceAsStream(resource)) {
+				byte[] buffer = new byte[4096];
+				int read;
+				
+				while ((read = stream.read(buffer)) != -1) {
+					bytes.write(buffer, 0, read);
+				}
+			}
+			
+			return defineClass(type.getName(), bytes.toByteArray(), 0, bytes.size());
+		}
+	}
+}
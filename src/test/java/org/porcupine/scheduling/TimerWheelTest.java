@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.scheduling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class TimerWheelTest {
+	
+	@Test
+	void expireTimersAtTheirDeadline() {
+		TimerWheel wheel = new TimerWheel(0);
+		Random random = new Random(42);
+		List<Timer> timers = new ArrayList<>();
+		
+		for (int i = 0; i < 1000; i++) {
+			Timer timer = new Timer(null, i, null);
+			wheel.schedule(timer, 1 + random.nextInt(1 << 20));
+			timers.add(timer);
+		}
+		
+		List<Timer> due = new ArrayList<>();
+		long now = 0;
+		
+		while (wheel.size() > 0) {
+			now += 1 + random.nextInt(5000);
+			wheel.advance(now, due);
+			
+			for (Timer timer : due) {
+				Assertions.assertTrue(timer.deadline <= now, "Timer expires before its deadline.");
+				Assertions.assertTrue(timer.deadline > now - 5000, "Timer expires after its deadline.");
+				Assertions.assertFalse(timer.isPending(), "Expired timer is still pending.");
+			}
+			
+			due.clear();
+		}
+		
+		for (Timer timer : timers) {
+			Assertions.assertFalse(timer.isPending(), "Timer never expires.");
+		}
+	}
+	
+	@Test
+	void expireTimersInOrder() {
+		TimerWheel wheel = new TimerWheel(0);
+		
+		for (long deadline : new long[]{70000, 300, 5, 256, 65536, 1}) {
+			wheel.schedule(new Timer(null, deadline, null), deadline);
+		}
+		
+		List<Timer> due = new ArrayList<>();
+		List<Long> order = new ArrayList<>();
+		
+		for (long now = 1; now <= 70000; now++) {
+			wheel.advance(now, due);
+			
+			for (Timer timer : due) {
+				Assertions.assertEquals(now, timer.deadline, "Timer does not expire exactly at its deadline.");
+				order.add(timer.payload);
+			}
+			
+			due.clear();
+		}
+		
+		Assertions.assertEquals(6, order.size(), "Not every timer expires.");
+	}
+	
+	@Test
+	void cancelTimer() {
+		TimerWheel wheel = new TimerWheel(0);
+		Timer timer = new Timer(null, 0, null);
+		wheel.schedule(timer, 10);
+		timer.cancel();
+		
+		List<Timer> due = new ArrayList<>();
+		wheel.advance(100, due);
+		
+		Assertions.assertTrue(due.isEmpty(), "Cancelled timer expires.");
+		Assertions.assertEquals(0, wheel.size(), "Cancelled timer is still counted.");
+	}
+	
+	@Test
+	void expireTimerBeyondHighestLevel() {
+		TimerWheel wheel = new TimerWheel(0);
+		long deadline = (1L << 32) + 12345;
+		Timer timer = new Timer(null, 0, null);
+		wheel.schedule(timer, deadline);
+		wheel.schedule(new Timer(null, 0, null), deadline + (1L << 33));
+		
+		List<Timer> due = new ArrayList<>();
+		wheel.advance(deadline - 1, due);
+		
+		Assertions.assertTrue(due.isEmpty(), "Distant timer expires early.");
+		
+		wheel.advance(deadline, due);
+		
+		Assertions.assertEquals(1, due.size(), "Distant timer does not expire at its deadline.");
+		Assertions.assertSame(timer, due.get(0), "Wrong timer expires.");
+	}
+}
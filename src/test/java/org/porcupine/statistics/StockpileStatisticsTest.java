@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.statistics;
+
+import init.resources.RESOURCE;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.porcupine.diagnostics.AllocationCounter;
+
+class StockpileStatisticsTest {
+	private static final int RESOURCE_COUNT = 8;
+	
+	@Test
+	void returnNothingBeforeFirstRefresh() {
+		StockpileStatistics statistics = new StockpileStatistics();
+		
+		Assertions.assertNull(statistics.get(0), "Metadata is returned before the statistics were refreshed.");
+	}
+	
+	@Test
+	void returnSnapshotsOfRefreshes() {
+		StockpileStatistics statistics = new StockpileStatistics();
+		statistics.resize(new RESOURCE[RESOURCE_COUNT]);
+		statistics.record(3, 10, 5, 100);
+		
+		ResourceMetadata metadata = statistics.get(3);
+		
+		Assertions.assertNotNull(metadata, "Metadata is missing after a refresh.");
+		Assertions.assertEquals(10, metadata.getBuyPrice(), "Metadata has the wrong buy price.");
+		Assertions.assertEquals(5, metadata.getSellPrice(), "Metadata has the wrong sell price.");
+		Assertions.assertEquals(100, metadata.getStockpile(), "Metadata has the wrong stockpile.");
+		
+		statistics.record(3, 12, 6, 80);
+		metadata.setStockpile(0);
+		
+		ResourceMetadata refreshed = statistics.get(3);
+		
+		Assertions.assertNotNull(refreshed, "Metadata is missing after a refresh.");
+		Assertions.assertEquals(12, refreshed.getBuyPrice(), "Metadata does not reflect a later refresh.");
+		Assertions.assertEquals(80, refreshed.getStockpile(), "Changing a snapshot changes the statistics.");
+		Assertions.assertEquals(10, metadata.getBuyPrice(), "A snapshot is changed by a later refresh.");
+	}
+	
+	@Test
+	void refreshAndReadWithoutAllocating() {
+		Assumptions.assumeTrue(AllocationCounter.isSupported(), "Allocations cannot be measured on this JVM.");
+		StockpileStatistics statistics = new StockpileStatistics();
+		statistics.resize(new RESOURCE[RESOURCE_COUNT]);
+		long total = 0;
+		
+		long start = AllocationCounter.getAllocatedBytes();
+		
+		for (int i = 0; i < 100000; i++) {
+			int index = i % RESOURCE_COUNT;
+			statistics.record(index, i, i / 2, i * 3);
+			total += statistics.getBuyPrice(index) + statistics.getSellPrice(index) + statistics.getStockpile(index);
+		}
+		
+		long allocated = AllocationCounter.getAllocatedBytes() - start;
+		
+		Assertions.assertTrue(total > 0, "Statistics were not read.");
+		Assertions.assertTrue(allocated < 1024, "Refreshing and reading statistics allocates " + allocated + " bytes.");
+	}
+}
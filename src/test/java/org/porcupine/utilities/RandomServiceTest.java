@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class RandomServiceTest {
+	
+	@AfterEach
+	void clear() {
+		RandomService.clear();
+	}
+	
+	@Test
+	void continueStreamsOfLoadedGame() {
+		RandomStream saved = RandomService.getStream("test:saved");
+		saved.nextLong();
+		saved.nextLong();
+		
+		long seed = RandomService.getSeed();
+		Map<String, Long> states = RandomService.snapshot();
+		long[] expected = draw(saved);
+		RandomStream derived = RandomService.getStream("test:derived");
+		long[] expectedDerived = draw(derived);
+		
+		// Starts a new game, whose streams are handed out before the game is loaded.
+		RandomService.clear();
+		RandomStream loaded = RandomService.getStream("test:saved");
+		loaded.nextLong();
+		RandomService.restore(seed, states);
+		
+		Assertions.assertArrayEquals(expected, draw(loaded), "Stream of the loaded game does not continue.");
+		Assertions.assertArrayEquals(
+				expectedDerived,
+				draw(RandomService.getStream("test:derived")),
+				"Stream that was not saved is not derived from the saved seed."
+		);
+	}
+	
+	@Test
+	void separateStreamsOfKeysWithSameHash() {
+		Assertions.assertEquals("Aa".hashCode(), "BB".hashCode(), "Keys do not share a hash.");
+		
+		RandomStream first = RandomService.getStream("Aa");
+		RandomStream second = RandomService.getStream("BB");
+		
+		Assertions.assertNotSame(first, second, "Keys with the same hash share a stream.");
+		Assertions.assertNotEquals(first.getState(), second.getState(), "Keys with the same hash start the same.");
+	}
+	
+	private static long[] draw(RandomStream stream) {
+		long[] values = new long[16];
+		
+		for (int i = 0; i < values.length; i++) {
+			values[i] = stream.nextLong();
+		}
+		
+		return values;
+	}
+}
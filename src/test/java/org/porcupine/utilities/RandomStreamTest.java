@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RandomStreamTest {
+	
+	@Test
+	void continueFromSavedState() {
+		RandomStream stream = new RandomStream(42);
+		stream.nextLong();
+		
+		RandomStream restored = new RandomStream(stream.getState());
+		
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertEquals(stream.nextLong(), restored.nextLong(), "Restored stream does not continue the stream.");
+		}
+	}
+	
+	@Test
+	void nextDouble() {
+		RandomStream stream = new RandomStream(42);
+		double sum = 0;
+		
+		for (int i = 0; i < 100000; i++) {
+			double value = stream.nextDouble();
+			Assertions.assertTrue(value >= 0 && value < 1, "Double is out of range: " + value);
+			sum += value;
+		}
+		
+		Assertions.assertEquals(0.5, sum / 100000, 0.01, "Doubles are not uniformly distributed.");
+	}
+	
+	@Test
+	void nextInt() {
+		RandomStream stream = new RandomStream(42);
+		int[] counts = new int[6];
+		
+		for (int i = 0; i < 60000; i++) {
+			counts[stream.nextInt(6)]++;
+		}
+		
+		for (int count : counts) {
+			Assertions.assertEquals(10000, count, 500, "Ints are not uniformly distributed.");
+		}
+		
+		Assertions.assertEquals(0, new RandomStream(42).nextInt(1), "Int below a bound of one is not zero.");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> stream.nextInt(0), "Bound of zero is accepted.");
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022 Milan Dierick | This source file is licensed under a modified version of Apache 2.0
+ */
+
+package org.porcupine.utilities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("DuplicateStringLiteralInspection")
+class VersionRangeTest {
+	
+	@Test
+	void containsAnyVersion() {
+		VersionRange range = VersionRange.parse("");
+		Assertions.assertTrue(range.contains(new Version(0)), "Empty range should match any version.");
+		Assertions.assertTrue(VersionRange.parse("*").contains(new Version(9, 9, 9)), "Wildcard should match any version.");
+	}
+	
+	@Test
+	void containsMinimumVersion() {
+		VersionRange range = VersionRange.parse("1.2");
+		Assertions.assertTrue(range.contains(new Version(1, 2)), "Minimum version should be included.");
+		Assertions.assertTrue(range.contains(new Version(3)), "Later version should be included.");
+		Assertions.assertFalse(range.contains(new Version(1, 1, 9)), "Earlier version should be excluded.");
+	}
+	
+	@Test
+	void containsExactVersion() {
+		VersionRange range = VersionRange.parse("[1.5]");
+		Assertions.assertTrue(range.contains(new Version(1, 5)), "Exact version should be included.");
+		Assertions.assertFalse(range.contains(new Version(1, 5, 1)), "Other version should be excluded.");
+	}
+	
+	@Test
+	void containsHalfOpenRange() {
+		VersionRange range = VersionRange.parse("[1.0,2.0)");
+		Assertions.assertTrue(range.contains(new Version(1)), "Inclusive lower bound should be included.");
+		Assertions.assertTrue(range.contains(new Version(1, 9, 9)), "Version within range should be included.");
+		Assertions.assertFalse(range.contains(new Version(2)), "Exclusive upper bound should be excluded.");
+	}
+	
+	@Test
+	void containsUnboundedRange() {
+		Assertions.assertTrue(VersionRange.parse("(,2.0]").contains(new Version(2)), "Upper bound should be included.");
+		Assertions.assertFalse(VersionRange.parse("(1.0,)").contains(new Version(1)), "Lower bound should be excluded.");
+	}
+	
+	@Test
+	void rejectMalformedRange() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> VersionRange.parse("[1.0,2.0"), "Unclosed range is accepted.");
+		Assertions.assertThrows(IllegalArgumentException.class, () -> VersionRange.parse("[a]"), "Invalid version is accepted.");
+	}
+}